@@ -0,0 +1,21 @@
+#!/bin/sh
+# Benchmarki JMH z raportem alokacji (-prof gc) i porównaniem z zapisanym baseline.
+#   ./bench.sh [--baseline] [argumenty JMH, np. SimulationBench -f 2]
+set -e
+cd "$(dirname "$0")"
+
+SAVE=0
+if [ "$1" = "--baseline" ]; then SAVE=1; shift; fi
+
+mkdir -p baseline target
+mvn -q -B package
+java -jar target/benchmarks.jar -prof gc -rf csv -rff target/jmh.csv "$@"
+
+if [ "$SAVE" = 1 ]; then
+    cp target/jmh.csv baseline/jmh.csv
+    echo "Zapisano baseline/jmh.csv"
+elif [ -f baseline/jmh.csv ]; then
+    java -cp target/benchmarks.jar skaczacykot.BenchCompare baseline/jmh.csv target/jmh.csv
+else
+    echo "Brak baseline/jmh.csv – zapisz go przez ./bench.sh --baseline"
+fi
@@ -0,0 +1,69 @@
+package skaczacykot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Porównanie dwóch wyników JMH w CSV ({@code -rf csv}): baseline i bieżący pomiar.
+ * Wypisuje zmianę każdej metryki (czas, przepustowość, {@code gc.alloc.rate.norm}) w procentach.
+ */
+final class BenchCompare {
+    private BenchCompare() {}
+
+    public static void main(String[] args) throws IOException {
+        Map<String, double[]> base = read(Paths.get(args[0]));
+        Map<String, double[]> now = read(Paths.get(args[1]));
+        System.out.printf("%-70s %14s %14s %9s%n", "benchmark", "baseline", "teraz", "zmiana");
+        for (Map.Entry<String, double[]> e : now.entrySet()) {
+            double[] b = base.get(e.getKey());
+            double cur = e.getValue()[0];
+            if (b == null) {
+                System.out.printf("%-70s %14s %14.3f %9s%n", e.getKey(), "-", cur, "nowy");
+            } else {
+                String change = b[0] == 0 ? (cur == 0 ? "0%" : "+inf") : String.format("%+.1f%%", 100 * (cur - b[0]) / b[0]);
+                System.out.printf("%-70s %14.3f %14.3f %9s%n", e.getKey(), b[0], cur, change);
+            }
+        }
+    }
+
+    /** Klucz: nazwa + parametry + jednostka, wartość: {wynik, błąd}. */
+    private static Map<String, double[]> read(Path csv) throws IOException {
+        List<String> lines = Files.readAllLines(csv);
+        Map<String, double[]> out = new LinkedHashMap<>();
+        if (lines.isEmpty()) return out;
+        String[] head = split(lines.get(0));
+        for (String line : lines.subList(1, lines.size())) {
+            String[] c = split(line);
+            StringBuilder key = new StringBuilder(c[0]);
+            for (int i = 7; i < c.length && i < head.length; i++) key.append(' ').append(head[i].replace("Param: ", "")).append('=').append(c[i]);
+            key.append(" [").append(c[6]).append(']');
+            out.put(key.toString(), new double[]{parse(c[4]), parse(c[5])});
+        }
+        return out;
+    }
+
+    private static double parse(String s) {
+        try { return Double.parseDouble(s); } catch (NumberFormatException e) { return Double.NaN; }
+    }
+
+    /** Pola CSV w cudzysłowach, oddzielone przecinkami (format JMH). */
+    private static String[] split(String line) {
+        List<String> f = new ArrayList<>();
+        StringBuilder cur = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (ch == '"') quoted = !quoted;
+            else if (ch == ',' && !quoted) { f.add(cur.toString()); cur.setLength(0); }
+            else cur.append(ch);
+        }
+        f.add(cur.toString());
+        return f.toArray(new String[0]);
+    }
+}
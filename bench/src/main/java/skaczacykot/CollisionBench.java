@@ -0,0 +1,80 @@
+package skaczacykot;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sam przebieg kolizji: zapytanie o pasy {@link EntityRing}, czas zderzenia z platformami
+ * ({@link Simulation#sweepToi}) i testy AABB ({@link Simulation#overlaps}) dla monet i kolców – tak jak w {@code step()},
+ * ale bez reszty fizyki. {@code perBand} to liczba obiektów w jednym pasie wysokości
+ * (w grze: 1 platforma, czasem moneta i kolec).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CollisionBench {
+
+    private static final int ROWS = 16;         // ok. 1,5 ekranu jak w grze
+    private static final int PROBES = 1024;     // potęga 2
+
+    @Param({"1", "4", "16"})
+    public int perBand;
+
+    private EntityRing platforms, coins, spikes;
+    private final int[] probeX = new int[PROBES], probeY = new int[PROBES];
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(7);
+        platforms = new EntityRing(64, Simulation.STEP_HEIGHT);
+        coins = new EntityRing(64, Simulation.STEP_HEIGHT);
+        spikes = new EntityRing(64, Simulation.STEP_HEIGHT);
+        // Rzędy od dołu do góry (pierścień przyjmuje coraz wyższe pasy)
+        for (int row = 0; row < ROWS; row++) {
+            int y = Simulation.START_FLOOR_Y - row * Simulation.STEP_HEIGHT;
+            for (int k = 0; k < perBand; k++) {
+                int w = Simulation.MIN_PLAT_W + r.nextInt(Simulation.MAX_PLAT_W - Simulation.MIN_PLAT_W + 1);
+                int x = r.nextInt(Simulation.WORLD_W - w);
+                platforms.add(x, y, w, Simulation.PLAT_H);
+                coins.add(x + 24, y - 40, Simulation.COIN_SIZE, Simulation.COIN_SIZE);
+                spikes.add(x + 32, y - 48, Simulation.SPIKE_SIZE, Simulation.SPIKE_SIZE);
+            }
+        }
+        int top = Simulation.START_FLOOR_Y - ROWS * Simulation.STEP_HEIGHT;
+        for (int i = 0; i < PROBES; i++) {
+            probeX[i] = r.nextInt(Simulation.WORLD_W);
+            probeY[i] = top + r.nextInt(Simulation.START_FLOOR_Y - top);
+        }
+    }
+
+    @Benchmark
+    public int collide() {
+        int i = next++ & (PROBES - 1);
+        int px = probeX[i], py = probeY[i], hits = 0;
+
+        // Platformy – prostokąt gracza przesuwany o krok spadania
+        int currX = px - Simulation.PLAYER_HALF_W, currY = py - 64, fall = 8;
+        for (int j = platforms.first(currY + fall + Simulation.PLAYER_H), n = platforms.end(currY - Simulation.MAX_ENTITY_H); j < n; j++) {
+            if (Simulation.sweepToi(currX, currY, 0, fall,
+                    platforms.x(j), platforms.y(j), platforms.w(j), platforms.h(j)) <= 1) hits++;
+        }
+        // Monety
+        int hitX = px - 36, hitY = py - 60;
+        for (int j = coins.first(hitY + 90), n = coins.end(hitY - Simulation.COIN_SIZE); j < n; j++) {
+            if (coins.alive(j) && Simulation.overlaps(hitX, hitY, 72, 90, coins.x(j), coins.y(j),
+                    Simulation.COIN_SIZE, Simulation.COIN_SIZE)) hits++;
+        }
+        // Kolce
+        int dangerX = px - 32, dangerY = py - 56;
+        for (int j = spikes.first(dangerY + 88), n = spikes.end(dangerY - Simulation.SPIKE_SIZE); j < n; j++) {
+            if (Simulation.overlaps(dangerX, dangerY, 64, 88, spikes.x(j) + 8, spikes.y(j) + 16, 48, 32)) hits++;
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,70 @@
+package skaczacykot;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generowanie świata: cały chunk ({@link LevelGenerator#chunk} – praca wątku "world-gen")
+ * oraz przepisanie gotowego rzędu do pierścieni {@link EntityRing} razem ze sprzątaniem
+ * starych rzędów (to, co zostaje w kroku gry, gdy chunk przyszedł z kolejki).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GenerationBench {
+
+    private static final int KEEP_ROWS = 16;
+
+    private static final long SEED = 42;
+    private static final int WRAP_CHUNKS = 1 << 16;   // potem od nowa – y świata mieści się w int
+
+    private final Random rnd = new Random();
+    private EntityRing platforms, coins, spikes;
+    private LevelGenerator.Chunk chunk;
+    private int index, row;
+
+    private final LevelGenerator.Sink sink = new LevelGenerator.Sink() {
+        @Override public void platform(int x, int y, int w, int h) { platforms.add(x, y, w, h); }
+        @Override public void coin(int x, int y)  { coins.add(x, y, Simulation.COIN_SIZE, Simulation.COIN_SIZE); }
+        @Override public void spike(int x, int y) { spikes.add(x, y, Simulation.SPIKE_SIZE, Simulation.SPIKE_SIZE); }
+    };
+
+    @Setup
+    public void setup() {
+        platforms = new EntityRing(64, Simulation.STEP_HEIGHT);
+        coins = new EntityRing(64, Simulation.STEP_HEIGHT);
+        spikes = new EntityRing(64, Simulation.STEP_HEIGHT);
+        row = 0;
+    }
+
+    @Benchmark
+    public int chunk() {
+        LevelGenerator.Chunk c = new LevelGenerator.Chunk(SEED, index);
+        LevelGenerator.chunk(SEED, index, Simulation.SPIKE_PROB, rnd, c);
+        index = (index + 1) % WRAP_CHUNKS;
+        return c.platformX(LevelGenerator.CHUNK_ROWS - 1);
+    }
+
+    @Benchmark
+    public int emitRow() {
+        int k = row / LevelGenerator.CHUNK_ROWS;
+        if (chunk == null || chunk.index != k) chunk = LevelGenerator.chunk(SEED, k);  // co CHUNK_ROWS wywołań
+        chunk.emit(row - k * LevelGenerator.CHUNK_ROWS, sink);
+        int killY = LevelGenerator.rowY(row) + KEEP_ROWS * Simulation.STEP_HEIGHT;
+        platforms.dropBelow(killY);
+        coins.dropBelow(killY);
+        spikes.dropBelow(killY);
+        if (++row == WRAP_CHUNKS * LevelGenerator.CHUNK_ROWS) {
+            row = 0;
+            platforms.clear();
+            coins.clear();
+            spikes.clear();
+        }
+        return platforms.size();
+    }
+}
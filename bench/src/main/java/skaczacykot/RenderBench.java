@@ -0,0 +1,55 @@
+package skaczacykot;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rysowanie całej klatki {@link GamePanel} (paintComponent) do obrazu poza ekranem.
+ * Pętla gry działa w tle jak w grze; przed każdą iteracją gra startuje od nowa,
+ * żeby mierzyć zwykłą rozgrywkę, a nie ekran końca gry. Skala renderowania jest stała
+ * (automatyczna zmieniałaby się w trakcie pomiaru).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBench {
+
+    @Param({"1920x1080", "3840x2160"})
+    public String size;
+
+    @Param({"1.0", "0.5"})
+    public double renderScale;
+
+    private GamePanel panel;
+    private BufferedImage target;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        int x = size.indexOf('x');
+        int w = Integer.parseInt(size.substring(0, x)), h = Integer.parseInt(size.substring(x + 1));
+        panel = new GamePanel((score, coins) -> { }, run -> { });
+        panel.setSize(w, h);
+        panel.setRenderScale(renderScale);
+        while (!panel.isReady()) Thread.sleep(5);
+        target = Assets.compatible(w, h, java.awt.Transparency.OPAQUE);
+    }
+
+    @Setup(Level.Iteration)
+    public void newGame() {
+        panel.restart();
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        Graphics2D g = target.createGraphics();
+        panel.paint(g);
+        g.dispose();
+        return target;
+    }
+}
@@ -0,0 +1,98 @@
+package skaczacykot;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Przepustowość {@link Simulation#step(int)} na skryptowanym wejściu (losowe ruchy i skoki,
+ * stałe dla danego ziarna). Po końcu gry symulacja startuje od nowa z kolejnym ziarnem –
+ * gra trwa średnio ok. 350 kroków, więc koszt {@code reset} to poniżej 1% pomiaru.
+ * {@code perRow} to gęstość świata: platform w rzędzie (w grze 1). Dodatkowe dokłada sam benchmark
+ * (generator gry zostaje nietknięty) – {@link LevelGenerator#spawnRow} w losowym miejscu rzędu,
+ * z monetami i kolcami jak zwykle, prosto do magazynów symulacji zaraz po pojawieniu się rzędu.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SimulationBench {
+
+    private static final int SCRIPT = 4096;   // potęga 2
+
+    @Param({"1", "4", "16"})
+    public int perRow;
+
+    private final int[] inputs = new int[SCRIPT];
+    private Simulation sim;
+    private long seed;
+    private int next;
+    private final Random extraRnd = new Random();
+    private int extrasY;   // nextSpawnY, do którego rzędy mają już dodatkowe platformy
+
+    // Dodatkowe obiekty trafiają do magazynów symulacji tak jak te z generatora
+    private final LevelGenerator.Sink extraSink = new LevelGenerator.Sink() {
+        @Override public void platform(int x, int y, int w, int h) { sim.platforms().add(x, y, w, h); }
+        @Override public void coin(int x, int y)  { sim.coins().add(x, y, Simulation.COIN_SIZE, Simulation.COIN_SIZE); }
+        @Override public void spike(int x, int y) { sim.spikes().add(x, y, Simulation.SPIKE_SIZE, Simulation.SPIKE_SIZE); }
+    };
+
+    @Setup
+    public void setup() {
+        Random r = new Random(1);
+        int in = 0;
+        for (int i = 0; i < SCRIPT; i++) {
+            if (i % 20 == 0) in = r.nextInt(8);   // co 20 kroków nowy kierunek / skok
+            else in &= ~Simulation.IN_JUMP;        // skok to zbocze – tylko w pierwszym kroku
+            inputs[i] = in;
+        }
+        sim = new Simulation(seed);
+        densify();
+    }
+
+    @Benchmark
+    public int step() {
+        if (sim.gameOver()) {
+            sim.reset(++seed);
+            densify();
+        }
+        int events = sim.step(inputs[next++ & (SCRIPT - 1)]);
+        // Przewijanie to kilka–kilkanaście px na krok, więc nowy rząd jest tu co najwyżej jeden
+        // i wciąż najwyższy – magazyny przyjmują obiekty tylko w górę świata
+        for (; extrasY > sim.nextSpawnY(); extrasY -= Simulation.STEP_HEIGHT) extras(extrasY);
+        return events;
+    }
+
+    /**
+     * Po {@code reset} rzędy startowe są już w magazynach, a dodatkowe platformy muszą leżeć
+     * w swoich rzędach – magazyny budujemy od nowa od dołu (ziemia, potem rząd po rzędzie).
+     */
+    private void densify() {
+        extrasY = sim.nextSpawnY();
+        if (perRow == 1) return;
+        sim.platforms().clear();
+        sim.coins().clear();
+        sim.spikes().clear();
+        sim.platforms().add(0, Simulation.START_FLOOR_Y, Simulation.WORLD_W, 80);
+        LevelGenerator.Chunk chunk = null;
+        for (int y = Simulation.START_FLOOR_Y - Simulation.STEP_HEIGHT; y > extrasY; y -= Simulation.STEP_HEIGHT) {
+            int row = LevelGenerator.rowAt(y);
+            int index = row / LevelGenerator.CHUNK_ROWS;
+            if (chunk == null || chunk.index != index) chunk = LevelGenerator.chunk(sim.seed(), index);
+            chunk.emit(row - index * LevelGenerator.CHUNK_ROWS, extraSink);
+            extras(y);
+        }
+    }
+
+    /** {@code perRow - 1} dodatkowych platform w rzędzie na wysokości {@code y} (stałe dla ziarna i rzędu). */
+    private void extras(int y) {
+        extraRnd.setSeed(LevelGenerator.mixSeed(sim.seed() ^ LevelGenerator.rowAt(y) * 0x9e3779b97f4a7c15L));
+        for (int e = 1; e < perRow; e++) {
+            int anchorX = LevelGenerator.rndBetween(extraRnd, 0, Simulation.WORLD_W);
+            LevelGenerator.spawnRow(extraRnd, y, anchorX, Simulation.SPIKE_PROB, extraSink);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package skaczacykot;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+
+/**
+ * Płótno do aktywnego rysowania – pętla gry rysuje bezpośrednio do BufferStrategy
+ * (podwójne/potrójne buforowanie), z pominięciem repaint() i RepaintManagera.
+ */
+final class ActiveCanvas extends Canvas {
+
+    /** Rysowanie jednej klatki w przestrzeni płótna (w x h). */
+    interface Painter { void paint(Graphics2D g, int w, int h); }
+
+    private final Painter painter;
+    private final int buffers;
+
+    ActiveCanvas(Painter painter, int buffers) {
+        this.painter = painter;
+        this.buffers = buffers;
+        setIgnoreRepaint(true);   // system nie rysuje – robi to wyłącznie pętla gry
+        setFocusable(true);
+        setBackground(Color.BLACK);
+    }
+
+    /**
+     * Rysuje i pokazuje klatkę (wołane z wątku pętli).
+     * @return false, gdy płótno nie jest jeszcze gotowe do rysowania
+     */
+    boolean renderFrame() {
+        int w = getWidth(), h = getHeight();
+        if (!isDisplayable() || w <= 0 || h <= 0) return false;
+
+        BufferStrategy bs = getBufferStrategy();
+        if (bs == null) {
+            createBufferStrategy(buffers); // AWT sam zejdzie do mniejszej liczby buforów / blitowania
+            bs = getBufferStrategy();
+            if (bs == null) return false;
+        }
+
+        // Zawartość bufora (VRAM) może zostać utracona – wtedy klatkę rysujemy ponownie
+        do {
+            do {
+                Graphics2D g = (Graphics2D) bs.getDrawGraphics();
+                try {
+                    painter.paint(g, w, h);
+                } finally {
+                    g.dispose();
+                }
+            } while (bs.contentsRestored());
+            bs.show();
+        } while (bs.contentsLost());
+
+        Toolkit.getDefaultToolkit().sync(); // wypchnij kolejkę (X11), mniejsze opóźnienie
+        return true;
+    }
+}
@@ -1,25 +1,322 @@
 package skaczacykot;
 
 import javax.imageio.ImageIO;
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Ładowanie grafik i pamięć podręczna sprite'ów.
+ * Obrazy są konwertowane do formatu zgodnego z ekranem, a sprite'y przeskalowane
+ * raz do docelowego rozmiaru na ekranie – rysowanie to wtedy zwykłe kopiowanie pikseli.
+ * Pliki są wczytywane i dekodowane równolegle na małej puli wątków ({@link #loader()}).
+ * Małe sprite'y animacji (kot, monety, kolec) są w każdej skali pakowane do jednego
+ * atlasu ({@link Atlas}) i rysowane jako fragmenty jednej powierzchni.
+ */
 final class Assets {
     private Assets() {}
 
+    private static final int MAX_BUCKETS = 2;                      // ostatnie rozmiary okna
+    private static final long BUCKET_BUDGET = 48L * 1024 * 1024;   // bajty na jeden kubełek skali
+    private static final int MAX_STRIPS = 64;                      // paski platform (różne szerokości)
+
+    static final Color PLATFORM_COLOR = new Color(70,140,70);      // platforma bez tekstury
+
+    private static final Map<String, CompletableFuture<BufferedImage>> loaded = new ConcurrentHashMap<>();
+    private static final LinkedHashMap<Long, Sprites> buckets = new LinkedHashMap<>(4, 0.75f, true);
+
+    // Pula do wczytywania zasobów (obrazy, dźwięki) – wątki demony, żeby nie blokowały wyjścia
+    private static final ExecutorService LOADER;
+    static {
+        AtomicInteger n = new AtomicInteger();
+        LOADER = Executors.newFixedThreadPool(Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors())), r -> {
+            Thread t = new Thread(r, "asset-loader-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    static Executor loader() {
+        return LOADER;
+    }
+
+    /** Obraz (czeka na wczytanie, jeśli trwa); null, gdy brak pliku. */
     static BufferedImage img(String name) {
+        return imgAsync(name).join();
+    }
+
+    /** Obraz wczytywany w tle – każdy plik tylko raz, niezależnie od liczby wywołań. */
+    static CompletableFuture<BufferedImage> imgAsync(String name) {
+        return loaded.computeIfAbsent(name, n -> CompletableFuture.supplyAsync(() -> read(n), LOADER));
+    }
+
+    private static BufferedImage read(String name) {
         try {
-            
             String full = "/resources/images/" + name;
             URL url = Assets.class.getResource(full);
             if (url == null) {
                 System.err.println("Nie znaleziono zasobu: " + full);
                 return null;
             }
-            return ImageIO.read(url);
+            return toCompatible(ImageIO.read(url));
         } catch (Exception e) {
             e.printStackTrace();
             return null;
         }
     }
+
+    /**
+     * Sprite'y dla skali panelu (sx, sy) – kubełek jest tworzony leniwie przy pierwszym
+     * rysowaniu po zmianie rozmiaru okna; najdawniej używane kubełki są zwalniane.
+     */
+    static synchronized Sprites forScale(double sx, double sy) {
+        long key = (Double.doubleToLongBits(sx) * 31) ^ Double.doubleToLongBits(sy);
+        Sprites s = buckets.get(key);
+        if (s == null || s.sx != sx || s.sy != sy) {
+            s = new Sprites(sx, sy);
+            buckets.put(key, s);
+            Iterator<Sprites> it = buckets.values().iterator();
+            while (buckets.size() > MAX_BUCKETS && it.hasNext()) {
+                if (it.next() != s) it.remove();
+            }
+        }
+        return s;
+    }
+
+    /** Sprite'y przeskalowane do jednej skali panelu, z limitem pamięci (LRU). */
+    static final class Sprites {
+        private record Key(BufferedImage src, int w, int h, boolean flipX) {}
+
+        final double sx, sy;
+        private final LinkedHashMap<Key, BufferedImage> cache = new LinkedHashMap<>(32, 0.75f, true);
+        private long bytes;
+        private Atlas atlas;
+
+        // Gotowe paski platform wg szerokości – szerokości są całkowite z zakresu MIN..MAX_PLAT_W
+        private final LinkedHashMap<Key, BufferedImage> strips = new LinkedHashMap<>(MAX_STRIPS, 0.75f, true) {
+            @Override protected boolean removeEldestEntry(Map.Entry<Key, BufferedImage> eldest) {
+                return size() > MAX_STRIPS;
+            }
+        };
+
+        private Sprites(double sx, double sy) {
+            this.sx = sx;
+            this.sy = sy;
+        }
+
+        /**
+         * Obraz {@code src} o rozmiarze świata {@code w x h} przeskalowany do pikseli ekranu
+         * (opcjonalnie odbity w poziomie).
+         */
+        BufferedImage get(BufferedImage src, int w, int h, boolean flipX) {
+            synchronized (Assets.class) {
+                Key key = new Key(src, w, h, flipX);
+                BufferedImage img = cache.get(key);
+                if (img != null) return img;
+
+                int dw = Math.max(1, (int) Math.round(w * sx));
+                int dh = Math.max(1, (int) Math.round(h * sy));
+                img = compatible(dw, dh, src.getTransparency());
+                Graphics2D g = img.createGraphics();
+                drawScaled(g, src, 0, 0, dw, dh, flipX);
+                g.dispose();
+
+                cache.put(key, img);
+                bytes += sizeOf(img);
+                Iterator<BufferedImage> it = cache.values().iterator();
+                while (bytes > BUCKET_BUDGET && cache.size() > 1 && it.hasNext()) {
+                    BufferedImage old = it.next();
+                    if (old == img) continue;
+                    bytes -= sizeOf(old);
+                    it.remove();
+                }
+                return img;
+            }
+        }
+
+        /** Atlas zestawu {@code spec} w tej skali – budowany przy pierwszym użyciu i po zmianie zestawu. */
+        Atlas atlas(AtlasSpec spec) {
+            synchronized (Assets.class) {
+                if (atlas == null || atlas.spec != spec) atlas = new Atlas(spec, sx, sy);
+                return atlas;
+            }
+        }
+
+        /**
+         * Platforma {@code w x h} (świat) wyrenderowana raz z kafelków {@code tile} do jednego
+         * obrazu w pikselach ekranu – rysowanie platformy to jedno kopiowanie.
+         * Dla {@code tile == null} pasek jest jednolitym prostokątem.
+         */
+        BufferedImage strip(BufferedImage tile, int w, int h) {
+            synchronized (Assets.class) {
+                Key key = new Key(tile, w, h, false);
+                BufferedImage img = strips.get(key);
+                if (img != null) return img;
+
+                int dw = Math.max(1, (int) Math.round(w * sx));
+                int dh = Math.max(1, (int) Math.round(h * sy));
+                img = compatible(dw, dh, tile != null ? tile.getTransparency() : Transparency.OPAQUE);
+                Graphics2D g = img.createGraphics();
+                g.setComposite(AlphaComposite.Src);
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                g.scale(sx, sy);
+                if (tile != null) {
+                    int tw = tile.getWidth();
+                    for (int x = 0; x < w; x += tw) {
+                        int cw = Math.min(tw, w - x);
+                        g.drawImage(tile, x, 0, x + cw, h, 0, 0, cw, tile.getHeight(), null);
+                    }
+                } else {
+                    g.setColor(PLATFORM_COLOR);
+                    g.fillRect(0, 0, w, h);
+                }
+                g.dispose();
+
+                strips.put(key, img);
+                return img;
+            }
+        }
+    }
+
+    /** Lista sprite'ów do atlasu: obraz źródłowy, rozmiar w świecie i odbicie. Po zbudowaniu nie zmieniać. */
+    static final class AtlasSpec {
+        private final List<BufferedImage> src = new ArrayList<>();
+        private final List<int[]> size = new ArrayList<>();   // {w, h, flipX}
+
+        /** Dodaje sprite i zwraca jego numer w atlasie (-1 dla {@code img == null}). */
+        int add(BufferedImage img, int w, int h, boolean flipX) {
+            if (img == null) return -1;
+            src.add(img);
+            size.add(new int[]{w, h, flipX ? 1 : 0});
+            return src.size() - 1;
+        }
+    }
+
+    /**
+     * Sprite'y z {@link AtlasSpec} przeskalowane i spakowane półkami do jednego obrazu.
+     * Rysowanie sprite'a to kopiowanie prostokąta z tej jednej powierzchni.
+     */
+    static final class Atlas {
+        private static final int PAD = 1;
+
+        final AtlasSpec spec;
+        private final BufferedImage img;
+        private final int[] rx, ry, rw, rh;
+
+        private Atlas(AtlasSpec spec, double sx, double sy) {
+            this.spec = spec;
+            int n = spec.src.size();
+            rx = new int[n]; ry = new int[n]; rw = new int[n]; rh = new int[n];
+
+            long area = 0;
+            int maxW = 1;
+            Integer[] order = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                int[] sz = spec.size.get(i);
+                rw[i] = Math.max(1, (int) Math.round(sz[0] * sx));
+                rh[i] = Math.max(1, (int) Math.round(sz[1] * sy));
+                area += (long) (rw[i] + PAD) * (rh[i] + PAD);
+                maxW = Math.max(maxW, rw[i] + PAD);
+                order[i] = i;
+            }
+
+            // Półki: najwyższe najpierw, szerokość atlasu ok. pierwiastka z pola
+            Arrays.sort(order, (a, b) -> rh[b] - rh[a]);
+            int width = Math.max(maxW, Integer.highestOneBit((int) Math.ceil(Math.sqrt(area)) * 2 - 1));
+            int x = 0, y = 0, shelfH = 0;
+            for (int i : order) {
+                if (x + rw[i] + PAD > width) { x = 0; y += shelfH; shelfH = 0; }
+                rx[i] = x; ry[i] = y;
+                x += rw[i] + PAD;
+                shelfH = Math.max(shelfH, rh[i] + PAD);
+            }
+
+            img = compatible(width, Math.max(1, y + shelfH), Transparency.TRANSLUCENT);
+            Graphics2D g = img.createGraphics();
+            for (int i = 0; i < n; i++) {
+                drawScaled(g, spec.src.get(i), rx[i], ry[i], rw[i], rh[i], spec.size.get(i)[2] != 0);
+            }
+            g.dispose();
+        }
+
+        /** Rysuje sprite {@code id} lewym górnym rogiem w (dx, dy) – bez skalowania. */
+        void draw(Graphics2D g, int id, int dx, int dy) {
+            int x = rx[id], y = ry[id], w = rw[id], h = rh[id];
+            g.drawImage(img, dx, dy, dx + w, dy + h, x, y, x + w, y + h, null);
+        }
+
+        int width(int id)  { return rw[id]; }
+        int height(int id) { return rh[id]; }
+    }
+
+    /** Skalowanie wysokiej jakości do prostokąta (x, y, w, h) – przy budowie pamięci podręcznych. */
+    private static void drawScaled(Graphics2D g, BufferedImage src, int x, int y, int w, int h, boolean flipX) {
+        g.setComposite(AlphaComposite.Src);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        if (flipX) g.drawImage(src, x + w, y, -w, h, null);
+        else       g.drawImage(src, x, y, w, h, null);
+    }
+
+    private static long sizeOf(BufferedImage img) {
+        return 4L * img.getWidth() * img.getHeight();
+    }
+
+    /** Kopia obrazu w formacie zgodnym z ekranem (szybkie blitowanie bez konwersji). */
+    static BufferedImage toCompatible(BufferedImage src) {
+        if (src == null) return null;
+        BufferedImage img = compatible(src.getWidth(), src.getHeight(), src.getTransparency());
+        if (img.getType() == src.getType() && img.getColorModel().equals(src.getColorModel())) return src;
+        Graphics2D g = img.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(src, 0, 0, null);
+        g.dispose();
+        return img;
+    }
+
+    /**
+     * Nieprzezroczysta kopia obrazu – tło rysowane na cały ekran jest wtedy zwykłym kopiowaniem,
+     * bez mieszania kanału alfa. Półprzezroczyste piksele dostają pełne krycie (ten sam kolor),
+     * a całkiem przezroczyste – kolor sąsiada spod spodu (albo z prawej), żeby na styku
+     * kafelków tła nie było widać pasa w innym kolorze.
+     */
+    static BufferedImage opaque(BufferedImage src) {
+        if (src == null || src.getTransparency() == Transparency.OPAQUE) return src;
+        int w = src.getWidth(), h = src.getHeight();
+        int[] px = src.getRGB(0, 0, w, h, null, 0, w);
+        for (int y = h - 1; y >= 0; y--) {
+            for (int x = w - 1; x >= 0; x--) {
+                int i = y * w + x;
+                if ((px[i] >>> 24) != 0)  px[i] |= 0xFF000000;
+                else if (y + 1 < h)       px[i] = px[i + w];
+                else if (x + 1 < w)       px[i] = px[i + 1];
+                else                      px[i] = 0xFF000000;
+            }
+        }
+        BufferedImage img = compatible(w, h, Transparency.OPAQUE);
+        img.setRGB(0, 0, w, h, px, 0, w);
+        return img;
+    }
+
+    static BufferedImage compatible(int w, int h, int transparency) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            return gc.createCompatibleImage(w, h, transparency);
+        }
+        return new BufferedImage(w, h, transparency == Transparency.OPAQUE
+                ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB_PRE);
+    }
 }
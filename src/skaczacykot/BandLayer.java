@@ -0,0 +1,122 @@
+package skaczacykot;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Warstwa statyczna świata: platformy i kolce wypieczone do obrazów pasów świata
+ * (po {@link #BAND_H} jednostek wysokości – jeden rząd platform) w pikselach ekranu.
+ * Pas to co innego niż chunk generatora ({@link LevelGenerator.Chunk}, {@code CHUNK_ROWS} rzędów).
+ * <p>
+ * Platformy i kolce nie ruszają się w świecie, więc pas jest rysowany raz – gdy wszystkie
+ * jego rzędy są już wygenerowane – a potem w każdej klatce to jedno kopiowanie z przesunięciem
+ * kamery. Obraz pasa obejmuje tylko prostokąt otaczający jego zawartość.
+ * Monety (znikają) i kot są rysowane osobno w każdej klatce.
+ */
+final class BandLayer {
+    static final int BAND_H = Simulation.STEP_HEIGHT;
+    private static final int VISIBLE = (Simulation.VIEW_H + BAND_H - 1) / BAND_H + 1;   // widok przecina najwyżej tyle pasów (5)
+    private static final int SLOTS = VISIBLE + 3;   // zapas: pasy tuż pod i nad widokiem nie są od razu nadpisywane
+
+    private static final class Band {
+        int index = Integer.MIN_VALUE;
+        boolean complete;
+        BufferedImage img;   // null = pusty pas
+        int ox, oy;          // lewy górny róg obrazu względem (0, góra pasa) w pikselach ekranu
+    }
+
+    private final Band[] slots = new Band[SLOTS];
+    private double sx = Double.NaN, sy = Double.NaN;
+    private Assets.Atlas atlas;
+
+    BandLayer() {
+        for (int i = 0; i < SLOTS; i++) slots[i] = new Band();
+    }
+
+    /** Zapomina wszystkie pasy (nowy świat po restarcie). */
+    void clear() {
+        for (Band b : slots) {
+            b.index = Integer.MIN_VALUE;
+            b.img = null;
+        }
+    }
+
+    /**
+     * Rysuje pasy przecinające widok [{@code viewTop}, {@code viewBottom}] (świat),
+     * budując brakujące lub niedokończone.
+     */
+    void draw(Graphics2D g, Simulation sim, Assets.Sprites sprites, Assets.Atlas atlas, int spikeId,
+              BufferedImage platformTile, double camY, int viewTop, int viewBottom) {
+        if (sprites.sx != sx || sprites.sy != sy || atlas != this.atlas) {
+            clear();
+            sx = sprites.sx;
+            sy = sprites.sy;
+            this.atlas = atlas;
+        }
+        for (int bi = Math.floorDiv(viewTop, BAND_H), last = Math.floorDiv(viewBottom, BAND_H); bi <= last; bi++) {
+            Band b = slots[Math.floorMod(bi, SLOTS)];
+            if (b.index != bi || !b.complete) bake(b, bi, sim, sprites, atlas, spikeId, platformTile);
+            if (b.img == null) continue;
+            int dy = (int) Math.floor(((long) bi * BAND_H - camY) * sy);
+            g.drawImage(b.img, b.ox, dy + b.oy, null);
+        }
+    }
+
+    private void bake(Band b, int bi, Simulation sim, Assets.Sprites sprites, Assets.Atlas atlas, int spikeId,
+                      BufferedImage platformTile) {
+        int top = bi * BAND_H, bottom = top + BAND_H;
+        EntityRing platforms = sim.platforms(), spikes = sim.spikes();
+
+        // Kompletny, gdy przyszłe rzędy (y <= nextSpawnY) nie sięgną już do tego pasa
+        b.index = bi;
+        b.complete = sim.nextSpawnY() + Simulation.MAX_ENTITY_H <= top;
+        b.img = null;
+
+        // Prostokąt otaczający zawartość (piksele ekranu względem góry pasa), przycięty do pasa
+        int bandPx = (int) Math.ceil(BAND_H * sy);
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = platforms.first(bottom), n = platforms.end(top - Simulation.MAX_ENTITY_H); i < n; i++) {
+            int y = platforms.y(i), h = platforms.h(i);
+            if (y >= bottom || y + h <= top) continue;
+            int x = platforms.x(i), w = platforms.w(i);
+            minX = Math.min(minX, (int) Math.floor(x * sx));
+            maxX = Math.max(maxX, (int) Math.ceil((x + w) * sx));
+            minY = Math.min(minY, (int) Math.floor((y - top) * sy));
+            maxY = Math.max(maxY, (int) Math.ceil((y + h - top) * sy));
+        }
+        if (spikeId >= 0) {
+            for (int i = spikes.first(bottom), n = spikes.end(top - Simulation.SPIKE_SIZE); i < n; i++) {
+                int y = spikes.y(i);
+                if (y >= bottom || y + Simulation.SPIKE_SIZE <= top) continue;
+                int x = (int) Math.floor(spikes.x(i) * sx);
+                minX = Math.min(minX, x);
+                maxX = Math.max(maxX, x + atlas.width(spikeId));
+                minY = Math.min(minY, (int) Math.floor((y - top) * sy));
+                maxY = Math.max(maxY, (int) Math.floor((y - top) * sy) + atlas.height(spikeId));
+            }
+        }
+        minY = Math.max(minY, 0);
+        maxY = Math.min(maxY, bandPx);
+        if (minX >= maxX || minY >= maxY) return;
+
+        b.ox = minX;
+        b.oy = minY;
+        b.img = Assets.compatible(maxX - minX, maxY - minY, Transparency.TRANSLUCENT);
+        Graphics2D g = b.img.createGraphics();
+        g.translate(-minX, -minY);
+        for (int i = platforms.first(bottom), n = platforms.end(top - Simulation.MAX_ENTITY_H); i < n; i++) {
+            int y = platforms.y(i), h = platforms.h(i);
+            if (y >= bottom || y + h <= top) continue;
+            g.drawImage(sprites.strip(platformTile, platforms.w(i), h),
+                    (int) Math.floor(platforms.x(i) * sx), (int) Math.floor((y - top) * sy), null);
+        }
+        if (spikeId >= 0) {
+            for (int i = spikes.first(bottom), n = spikes.end(top - Simulation.SPIKE_SIZE); i < n; i++) {
+                int y = spikes.y(i);
+                if (y >= bottom || y + Simulation.SPIKE_SIZE <= top) continue;
+                atlas.draw(g, spikeId, (int) Math.floor(spikes.x(i) * sx), (int) Math.floor((y - top) * sy));
+            }
+        }
+        g.dispose();
+    }
+}
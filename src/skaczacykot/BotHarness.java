@@ -0,0 +1,214 @@
+package skaczacykot;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Boty grające bardzo wiele niezależnych gier naraz (test obciążenia i balansu): każda gra ma
+ * własne ziarno i własną {@link Simulation} bez ekranu, sterowaną przez {@link BotPolicy}.
+ * Gry dzielone są między wątki puli ForkJoin (work-stealing); wyniki liczników
+ * i histogramów są sumowane po zakończeniu.
+ * <p>
+ * Wynik: czas przeżycia, punkty i przyczyny końca gry dla każdej polityki. Strojone wartości
+ * {@code scrollGrow} ({@link Simulation#SCROLL_SPEED_GROW}) i {@code spikeProb}
+ * ({@link Simulation#SPIKE_PROB}) podaje się z linii poleceń. {@code --soak} gra na zmianę
+ * tak długo, aż łącznie minie podana liczba kroków, i porównuje zajętą stertę przed i po
+ * (wyciek w symulacji).
+ * <p>
+ * Uruchomienie: {@code java -cp SkaczacyKot.jar skaczacykot.BotHarness [gry] [random|greedy|coins|all]
+ * [scrollGrow] [spikeProb] [--soak kroki]}
+ */
+final class BotHarness {
+
+    private static final int LEAF_GAMES = 64;
+    private static final long MAX_TICKS = 1_000_000;   // gra przerwana po ok. 4,6 h czasu gry
+    private static final int SURVIVAL_BUCKET = Simulation.TARGET_FPS * 5;   // 5 s
+    private static final int SCORE_BUCKET = 200;
+    private static final int BUCKETS = 40;
+    private static final int BAR = 40;
+
+    private static final String[] CAUSES = {"limit kroków", "kolec", "upadek"};   // indeks = DEATH_*
+
+    private BotHarness() {}
+
+    /** Histogram o stałej szerokości przedziału (ostatni przedział zbiera resztę). */
+    static final class Histogram {
+        private final int bucket;
+        private final long[] counts = new long[BUCKETS];
+        private long count, sum, max;
+
+        Histogram(int bucket) { this.bucket = bucket; }
+
+        void add(long v) {
+            counts[(int) Math.min(BUCKETS - 1, v / bucket)]++;
+            count++;
+            sum += v;
+            max = Math.max(max, v);
+        }
+
+        void add(Histogram o) {
+            for (int i = 0; i < BUCKETS; i++) counts[i] += o.counts[i];
+            count += o.count;
+            sum += o.sum;
+            max = Math.max(max, o.max);
+        }
+
+        /** Górna granica przedziału, w którym leży percentyl {@code p} (0..1). */
+        long percentile(double p) {
+            long rank = (long) Math.ceil(p * count), seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) return i == BUCKETS - 1 ? max : (long) (i + 1) * bucket;
+            }
+            return max;
+        }
+
+        void print(String title, String unit, double scale) {
+            System.out.printf("  %s: średnio %.1f, p50 <= %.1f, p90 <= %.1f, p99 <= %.1f, max %.1f %s%n", title,
+                    count == 0 ? 0 : sum / scale / count, percentile(0.5) / scale, percentile(0.9) / scale,
+                    percentile(0.99) / scale, max / scale, unit);
+            long top = Arrays.stream(counts).max().orElse(0);
+            for (int i = 0; i < BUCKETS; i++) {
+                if (counts[i] == 0) continue;
+                String range = i == BUCKETS - 1 ? String.format(">= %7.1f", i * bucket / scale)
+                                                : String.format("%7.1f-%-7.1f", i * bucket / scale, (i + 1) * bucket / scale);
+                System.out.printf("    %-16s %8d %s%n", range, counts[i], "#".repeat((int) Math.max(1, counts[i] * BAR / top)));
+            }
+        }
+    }
+
+    /** Wynik serii gier (sumowany między wątkami). */
+    static final class Stats {
+        long games, ticks, coins;
+        final long[] causes = new long[CAUSES.length];
+        final Histogram survival = new Histogram(SURVIVAL_BUCKET);
+        final Histogram score = new Histogram(SCORE_BUCKET);
+
+        void add(Stats o) {
+            games += o.games; ticks += o.ticks; coins += o.coins;
+            for (int i = 0; i < causes.length; i++) causes[i] += o.causes[i];
+            survival.add(o.survival);
+            score.add(o.score);
+        }
+    }
+
+    private static final class Task extends RecursiveTask<Stats> {
+        private final String policy;
+        private final long baseSeed, from, to;
+        private final double scrollGrow, spikeProb;
+
+        Task(String policy, long baseSeed, long from, long to, double scrollGrow, double spikeProb) {
+            this.policy = policy; this.baseSeed = baseSeed; this.from = from; this.to = to;
+            this.scrollGrow = scrollGrow; this.spikeProb = spikeProb;
+        }
+
+        @Override protected Stats compute() {
+            if (to - from > LEAF_GAMES) {
+                long mid = (from + to) >>> 1;
+                Task left = new Task(policy, baseSeed, from, mid, scrollGrow, spikeProb);
+                left.fork();
+                Stats s = new Task(policy, baseSeed, mid, to, scrollGrow, spikeProb).compute();
+                s.add(left.join());
+                return s;
+            }
+            // Jedna symulacja i jedna polityka na liść – przestawiane ziarnem kolejnych gier
+            Stats s = new Stats();
+            BotPolicy bot = BotPolicy.create(policy);
+            Simulation sim = null;
+            for (long i = from; i < to; i++) {
+                long seed = LevelGenerator.mixSeed(baseSeed + i);
+                if (sim == null) sim = new Simulation(seed, world(spikeProb), scrollGrow);
+                else sim.reset(seed);
+                play(sim, bot, seed, s);
+            }
+            return s;
+        }
+    }
+
+    private static LevelGenerator.Source world(double spikeProb) {
+        return spikeProb == Simulation.SPIKE_PROB ? LevelGenerator.INLINE
+                                                  : (seed, index) -> LevelGenerator.chunk(seed, index, spikeProb);
+    }
+
+    private static void play(Simulation sim, BotPolicy bot, long seed, Stats s) {
+        bot.reset(seed);
+        while (!sim.gameOver() && sim.ticks() < MAX_TICKS) sim.step(bot.input(sim));
+        s.games++;
+        s.ticks += sim.ticks();
+        s.coins += sim.coinsCollected();
+        s.causes[sim.deathCause()]++;
+        s.survival.add(sim.ticks());
+        s.score.add(sim.score());
+    }
+
+    /** Rozgrywa {@code games} gier polityką {@code policy}, zaczynając od ziarna bazowego. */
+    static Stats run(String policy, long baseSeed, long games, double scrollGrow, double spikeProb) {
+        return ForkJoinPool.commonPool().invoke(new Task(policy, baseSeed, 0, games, scrollGrow, spikeProb));
+    }
+
+    /** Jedna symulacja grająca gra po grze, aż łącznie minie {@code ticks} kroków; wypisuje stertę przed i po. */
+    static void soak(String policy, long ticks, double scrollGrow, double spikeProb) {
+        Runtime rt = Runtime.getRuntime();
+        BotPolicy bot = BotPolicy.create(policy);
+        Simulation sim = new Simulation(0, world(spikeProb), scrollGrow);
+        Stats s = new Stats();
+        long before = -1, t0 = System.nanoTime();
+        for (long game = 0; s.ticks < ticks; game++) {
+            sim.reset(LevelGenerator.mixSeed(game));
+            play(sim, bot, sim.seed(), s);
+            if (before < 0 && s.ticks >= ticks / 10) before = usedHeap(rt);   // po rozgrzaniu (JIT, bufory)
+        }
+        double secs = (System.nanoTime() - t0) / 1e9;
+        long after = usedHeap(rt);
+        System.out.printf("Soak %s: %d kroków w %d grach, %.2f s (%.0f kroków/s)%n", policy, s.ticks, s.games, secs, s.ticks / secs);
+        System.out.printf("  sterta po rozgrzaniu %.2f MB, na końcu %.2f MB%n", before / 1048576.0, after / 1048576.0);
+        System.out.println("  " + sim.platforms() + " " + sim.coins() + " " + sim.spikes());
+    }
+
+    private static long usedHeap(Runtime rt) {
+        System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        long games = 100_000, soak = -1;
+        String policy = "all";
+        double scrollGrow = Simulation.SCROLL_SPEED_GROW, spikeProb = Simulation.SPIKE_PROB;
+        int pos = 0;
+        for (int i = 0; i < args.length; i++) {
+            if ("--soak".equals(args[i])) { soak = Long.parseLong(args[++i]); continue; }
+            switch (pos++) {
+                case 0 -> games = Long.parseLong(args[i]);
+                case 1 -> policy = args[i];
+                case 2 -> scrollGrow = Double.parseDouble(args[i]);
+                case 3 -> spikeProb = Double.parseDouble(args[i]);
+                default -> throw new IllegalArgumentException("Nadmiarowy argument: " + args[i]);
+            }
+        }
+        String[] policies = "all".equals(policy) ? BotPolicy.NAMES : new String[] {policy};
+        for (String p : policies) BotPolicy.create(p);   // zła nazwa – błąd przed startem
+
+        if (soak > 0) {
+            for (String p : policies) soak(p, soak, scrollGrow, spikeProb);
+            return;
+        }
+        System.out.printf("Gry: %d na politykę, scrollGrow %.4f, spikeProb %.2f, %d wątków%n",
+                games, scrollGrow, spikeProb, ForkJoinPool.getCommonPoolParallelism());
+        for (String p : policies) {
+            long t0 = System.nanoTime();
+            Stats s = run(p, 42, games, scrollGrow, spikeProb);
+            double secs = (System.nanoTime() - t0) / 1e9;
+            System.out.printf("%n[%s] %d gier, %d kroków, %.2f s (%.0f kroków/s), monety średnio %.2f%n",
+                    p, s.games, s.ticks, secs, s.ticks / secs, s.coins / (double) s.games);
+            StringBuilder causes = new StringBuilder("  koniec gry:");
+            for (int i = 0; i < CAUSES.length; i++) {
+                causes.append(String.format(" %s %d (%.1f%%)", CAUSES[i], s.causes[i], 100.0 * s.causes[i] / s.games));
+            }
+            System.out.println(causes);
+            s.survival.print("przeżycie", "s", Simulation.TARGET_FPS);
+            s.score.print("punkty", "pkt", 1);
+        }
+    }
+}
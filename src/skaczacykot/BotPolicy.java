@@ -0,0 +1,171 @@
+package skaczacykot;
+
+import java.util.Random;
+
+import static skaczacykot.Simulation.*;
+
+/**
+ * Sterowanie gracza bez klawiatury (dla {@link BotHarness}): przed każdym krokiem polityka
+ * patrzy na stan {@link Simulation} i zwraca ramkę wejścia (bity {@code IN_*}).
+ * Polityka ma stan, więc każdy wątek ma własną instancję.
+ */
+interface BotPolicy {
+
+    String[] NAMES = {"random", "greedy", "coins"};
+
+    /** Nowa gra (polityki losowe biorą z ziarna gry własne ziarno). */
+    void reset(long seed);
+
+    int input(Simulation sim);
+
+    static BotPolicy create(String name) {
+        return switch (name) {
+            case "random" -> new RandomBot();
+            case "greedy" -> new PlatformBot(false);
+            case "coins"  -> new PlatformBot(true);
+            default -> throw new IllegalArgumentException("Nieznana polityka bota: " + name + " (random | greedy | coins)");
+        };
+    }
+
+    /** Losowy kierunek i skok co {@link #HOLD} kroków (jak skrypt w SimulationBench). */
+    final class RandomBot implements BotPolicy {
+        private static final int HOLD = 20;
+        private final Random rnd = new Random();
+        private int in;
+
+        @Override public void reset(long seed) { rnd.setSeed(~seed); in = 0; }
+
+        @Override public int input(Simulation sim) {
+            if (sim.ticks() % HOLD == 0) in = rnd.nextInt(8);
+            else in &= ~IN_JUMP;   // skok to zbocze – tylko w pierwszym kroku
+            return in;
+        }
+    }
+
+    /**
+     * Zawsze na najbliższą platformę wyżej: podejście z boku, skok z odległości {@link #JUMP_GAP},
+     * w locie hamowanie, dopóki głowa mogłaby uderzyć w spód, potem lądowanie z dala od kolca.
+     * Wariant {@code coins} zbiera jeszcze monetę z bieżącej platformy (gdy kamera daje czas)
+     * i ląduje na monecie platformy docelowej.
+     */
+    final class PlatformBot implements BotPolicy {
+        private static final int JUMP_GAP = 140;        // odstęp prostokąta gracza od platformy przy wybiciu
+        private static final int EDGE_MARGIN = 40;      // lądowanie co najmniej tyle od krawędzi
+        private static final int COIN_SLACK = 300;      // po monetę tylko, gdy stopy są tyle nad dołem widoku
+
+        private final boolean coins;
+        private boolean target;
+        private int tx, ty, tw;   // platforma docelowa
+
+        PlatformBot(boolean coins) { this.coins = coins; }
+
+        @Override public void reset(long seed) { target = false; }
+
+        @Override public int input(Simulation sim) {
+            double px = sim.px(), feet = sim.py() + 32;
+            if (sim.onGround()) return onGround(sim, px, (int) Math.round(feet));
+            if (!target) return 0;
+
+            // W locie: dopóki stopy są pod górą platformy, nie wolno wejść pod nią
+            double goal = landing(sim, px);
+            int toward = goal > px ? IN_RIGHT : IN_LEFT;
+            if (feet > ty) {
+                double vNext = Math.max(-MOVE_MAX, Math.min(MOVE_MAX, sim.vx() + (toward == IN_RIGHT ? 1 : -1) * MOVE_ACCEL * DT));
+                double nx = px + vNext * DT;
+                if (nx + PLAYER_HALF_W > tx && nx - PLAYER_HALF_W < tx + tw) return toward == IN_RIGHT ? IN_LEFT : IN_RIGHT;
+                return toward;
+            }
+            return approach(goal - px, sim.vx());
+        }
+
+        /** Do celu odległego o {@code d}: hamowanie przeciwnym kierunkiem, gdy droga hamowania go przekroczy. */
+        private static int approach(double d, double vx) {
+            if (Math.abs(d) < 2 && Math.abs(vx) < MOVE_ACCEL * DT) return 0;
+            boolean braking = vx * d > 0 && vx * vx / (2 * MOVE_ACCEL) >= Math.abs(d);
+            return (d > 0) != braking ? IN_RIGHT : IN_LEFT;
+        }
+
+        private int onGround(Simulation sim, double px, int ground) {
+            if (!pickTarget(sim, ground)) return 0;
+
+            // Moneta na bieżącej platformie – najpierw po nią
+            if (coins && sim.py() + 32 - sim.camY() < VIEW_H - COIN_SLACK) {
+                EntityRing c = sim.coins();
+                for (int i = c.first(ground - 40), n = c.end(ground - 40); i < n; i++) {
+                    if (!c.alive(i) || c.y(i) != ground - 40) continue;
+                    double cx = c.x(i) + COIN_SIZE / 2.0;
+                    if (Math.abs(cx - px) < 240) return step(sim, px, cx > px ? IN_RIGHT : IN_LEFT, ground);
+                }
+            }
+
+            // Podejście od strony, po której jest więcej miejsca do lądowania (kolca nie przelatujemy)
+            boolean fromLeft = fromLeft(sim, px);
+            int gap = fromLeft ? tx - (int) (px + PLAYER_HALF_W) : (int) (px - PLAYER_HALF_W) - (tx + tw);
+            int toward = fromLeft ? IN_RIGHT : IN_LEFT;
+            if (gap < 0) return step(sim, px, fromLeft ? IN_LEFT : IN_RIGHT, ground);   // pod nią albo za nią – obejść
+            if (gap <= JUMP_GAP) return toward | IN_JUMP;
+            return step(sim, px, toward, ground);
+        }
+
+        /** Czy skakać na platformę docelową z lewej (bez kolca – z bliższej strony). */
+        private boolean fromLeft(Simulation sim, double px) {
+            EntityRing s = sim.spikes();
+            for (int i = s.first(ty - 48), n = s.end(ty - 48); i < n; i++) {
+                if (s.y(i) != ty - 48 || s.x(i) < tx || s.x(i) > tx + tw) continue;
+                return s.x(i) - tx > tx + tw - (s.x(i) + SPIKE_SIZE);
+            }
+            return px < tx + tw / 2.0;
+        }
+
+        /** Krok po platformie; skok, gdy za chwilę byłby kolec albo koniec platformy. */
+        private int step(Simulation sim, double px, int dir, int ground) {
+            double nx = px + (dir == IN_RIGHT ? 1 : -1) * 2 * MOVE_MAX * DT;
+            EntityRing s = sim.spikes();
+            for (int i = s.first(ground - 48), n = s.end(ground - 48); i < n; i++) {
+                if (s.y(i) == ground - 48 && nx > s.x(i) - 24 && nx < s.x(i) + 88) return dir | IN_JUMP;
+            }
+            EntityRing p = sim.platforms();
+            for (int i = p.first(ground), n = p.end(ground); i < n; i++) {
+                if (p.y(i) == ground && nx + PLAYER_HALF_W > p.x(i) && nx - PLAYER_HALF_W < p.x(i) + p.w(i)) return dir;
+            }
+            return dir | IN_JUMP;
+        }
+
+        /** Najniższa platforma ponad stopami (następny rząd). */
+        private boolean pickTarget(Simulation sim, int ground) {
+            EntityRing p = sim.platforms();
+            int best = Integer.MIN_VALUE;
+            for (int i = p.first(ground - 1), n = p.end(ground - 2 * STEP_HEIGHT); i < n; i++) {
+                int y = p.y(i);
+                if (y < ground && y > best) {
+                    best = y;
+                    tx = p.x(i); ty = y; tw = p.w(i);
+                }
+            }
+            target = best != Integer.MIN_VALUE;
+            return target;
+        }
+
+        /** Punkt lądowania na platformie docelowej: moneta (wariant coins) albo najbliższe bezpieczne miejsce. */
+        private double landing(Simulation sim, double px) {
+            double lo = tx + EDGE_MARGIN, hi = tx + tw - EDGE_MARGIN;
+            EntityRing s = sim.spikes();
+            for (int i = s.first(ty - 48), n = s.end(ty - 48); i < n; i++) {
+                if (s.y(i) != ty - 48 || s.x(i) < tx || s.x(i) > tx + tw) continue;
+                // Strefa kolca (środek gracza) z zapasem; skok ledwo przewyższa platformę, więc strefy
+                // nie przelatujemy – lądujemy po stronie, z której nadlatujemy (chyba że tam brak miejsca)
+                double zLo = s.x(i) - 24 - 8, zHi = s.x(i) + 88 + 8;
+                boolean before = px < (zLo + zHi) / 2 ? zLo - lo >= 0 : hi - zHi < 0;
+                if (before) hi = Math.min(hi, zLo); else lo = Math.max(lo, zHi);
+            }
+            if (coins) {
+                EntityRing c = sim.coins();
+                for (int i = c.first(ty - 40), n = c.end(ty - 40); i < n; i++) {
+                    double cx = c.x(i) + COIN_SIZE / 2.0;
+                    if (c.alive(i) && c.y(i) == ty - 40 && cx >= lo && cx <= hi) return cx;
+                }
+            }
+            return lo > hi ? tx + tw / 2.0 : Math.max(lo, Math.min(hi, px));
+        }
+    }
+}
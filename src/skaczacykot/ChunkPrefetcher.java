@@ -0,0 +1,119 @@
+package skaczacykot;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generowanie chunków świata z wyprzedzeniem na wątku w tle ("world-gen").
+ * <p>
+ * Wątek (demon) liczy kolejne chunki za ostatnio pobranym i odkłada je do ograniczonej kolejki
+ * (najwyżej {@code ahead} sztuk – gdy jest pełna, czeka). Symulacja tylko zagląda do kolejki
+ * ({@code poll}, bez czekania); gdy potrzebnego chunka jeszcze nie ma (start, restart, skok
+ * na inną wysokość), generuje go na miejscu i przestawia wątek. Zawartość chunka zależy
+ * wyłącznie od (ziarno, numer), więc przebieg gry nie zależy od tego, kto go policzył.
+ * <p>
+ * Kilka symulacji z tym samym ziarnem (wyścig) może mieć jedno źródło: ostatnio wydane chunki
+ * ({@link #RECENT}) dostają kolejne symulacje bez pytania kolejki – kamery przesuwają się
+ * z czasem jednakowo, więc wszystkie proszą o ten sam chunk w tym samym kroku.
+ */
+final class ChunkPrefetcher implements LevelGenerator.Source {
+
+    private static final long RETARGET_CHECK_MS = 50;
+    private static final int RECENT = 4;   // potęga 2
+
+    private final ArrayBlockingQueue<LevelGenerator.Chunk> queue;
+    private final Object target = new Object();
+
+    // Cel wątku (pod monitorem target): od którego chunka generować dla jakiego ziarna
+    private long wantSeed;
+    private int wantIndex;
+    private int generation;   // zmienia się przy każdym przestawieniu celu
+    private Thread thread;
+
+    // Strona konsumenta (wątek symulacji)
+    private long seed;
+    private int expected = -1;  // numer chunka, o który powinno paść następne pytanie
+    private final LevelGenerator.Chunk[] recent = new LevelGenerator.Chunk[RECENT];   // po numerze chunka mod RECENT
+    private volatile long hits, misses, shared;
+
+    ChunkPrefetcher(int ahead) {
+        queue = new ArrayBlockingQueue<>(ahead);
+    }
+
+    long hits()   { return hits; }
+    long misses() { return misses; }
+    long shared() { return shared; }   // wydane ponownie innej symulacji
+
+    @Override public LevelGenerator.Chunk chunk(long seed, int index) {
+        LevelGenerator.Chunk r = recent[index & (RECENT - 1)];
+        if (r != null && r.seed == seed && r.index == index) {
+            shared++;
+            return r;
+        }
+        LevelGenerator.Chunk c = next(seed, index);
+        recent[index & (RECENT - 1)] = c;
+        return c;
+    }
+
+    private LevelGenerator.Chunk next(long seed, int index) {
+        if (seed == this.seed && index == expected) {
+            for (LevelGenerator.Chunk c; (c = queue.poll()) != null; ) {
+                if (c.seed == seed && c.index == index) {
+                    expected = index + 1;
+                    hits++;
+                    return c;
+                }
+                if (c.seed == seed && c.index > index) break; // nie powinno się zdarzyć – przestawimy wątek
+                // starszy lub z poprzedniego świata – wyrzucamy
+            }
+        }
+        // Brak w kolejce: na miejscu, a wątek dalej od następnego
+        misses++;
+        this.seed = seed;
+        expected = index + 1;
+        retarget(seed, index + 1);
+        return LevelGenerator.chunk(seed, index);
+    }
+
+    private void retarget(long seed, int index) {
+        synchronized (target) {
+            wantSeed = seed;
+            wantIndex = index;
+            generation++;
+            queue.clear();
+            if (thread == null) {
+                thread = new Thread(this::run, "world-gen");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                thread.start();
+            }
+        }
+    }
+
+    private void run() {
+        long seed = 0;
+        int next = 0, gen = -1;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                synchronized (target) {
+                    if (gen != generation) {
+                        gen = generation;
+                        seed = wantSeed;
+                        next = wantIndex;
+                    }
+                }
+                LevelGenerator.Chunk c = LevelGenerator.chunk(seed, next);
+                // Kolejka pełna – czekamy, ale co jakiś czas sprawdzamy, czy cel się nie zmienił
+                boolean stale = false;
+                while (!queue.offer(c, RETARGET_CHECK_MS, TimeUnit.MILLISECONDS)) {
+                    synchronized (target) {
+                        if (gen != generation) { stale = true; break; }
+                    }
+                }
+                if (!stale) next++;
+            }
+        } catch (InterruptedException ignored) {
+            // koniec
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package skaczacykot;
+
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Nakładka diagnostyczna (F3): czasy kroku i rysowania (p50 / p99 / max z ostatnich pomiarów),
+ * FPS, doganianie pętli, liczba obiektów świata, trafienia kolejki chunków, tempo alokacji,
+ * opóźnienie od klawisza do kroku symulacji i wewnętrzna rozdzielczość świata.
+ * Tekst jest przeliczany kilka razy na sekundę, nie w każdej klatce.
+ */
+final class DebugOverlay {
+    private static final long REFRESH_NANOS = 250_000_000L;
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 13);
+    private static final Color BOX = new Color(0, 0, 0, 170);
+
+    final FrameStats tickTimes = new FrameStats(1024);   // ok. 17 s przy 60 krokach/s
+    final FrameStats renderTimes = new FrameStats(512);
+    final FrameStats inputLatency = new FrameStats(256);   // od zdarzenia klawisza do kroku, który je wziął
+
+    private volatile boolean visible;
+
+    private final String[] lines = new String[7];
+    private long lastRefresh;
+    private long lastAllocBytes = -1, lastAllocAt;
+    private double allocRate;   // bajty/s
+
+    private final com.sun.management.ThreadMXBean threads = allocMxBean();
+
+    boolean isVisible() { return visible; }
+    void toggle()       { visible = !visible; }
+
+    /** Rysuje nakładkę w lewym górnym rogu (pod lock panelu – wtedy pomiary są spójne). */
+    void draw(Graphics2D g, GameLoop loop, Simulation sim, ChunkPrefetcher worldGen, RenderScale renderScale) {
+        long now = System.nanoTime();
+        if (lines[0] == null || now - lastRefresh >= REFRESH_NANOS) {
+            refresh(now, loop, sim, worldGen);
+            lines[6] = renderScale.describe();
+            lastRefresh = now;
+        }
+        g.setFont(FONT);
+        FontMetrics fm = g.getFontMetrics();
+        int lh = fm.getHeight(), w = 0;
+        for (String l : lines) w = Math.max(w, fm.stringWidth(l));
+        g.setColor(BOX);
+        g.fillRect(8, 8, w + 16, lh * lines.length + 12);
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < lines.length; i++) g.drawString(lines[i], 16, 14 + fm.getAscent() + i * lh);
+    }
+
+    private void refresh(long now, GameLoop loop, Simulation sim, ChunkPrefetcher worldGen) {
+        tickTimes.snapshot();
+        renderTimes.snapshot();
+        lines[0] = String.format("krok   p50 %6.3f  p99 %6.3f  max %6.3f ms", ms(tickTimes.percentile(0.5)),
+                ms(tickTimes.percentile(0.99)), ms(tickTimes.max()));
+        lines[1] = String.format("klatka p50 %6.3f  p99 %6.3f  max %6.3f ms", ms(renderTimes.percentile(0.5)),
+                ms(renderTimes.percentile(0.99)), ms(renderTimes.max()));
+        inputLatency.snapshot();
+        lines[5] = inputLatency.count() == 0 ? "wejście→krok: brak zdarzeń"
+                : String.format("wejście→krok p50 %6.3f  p99 %6.3f  max %6.3f ms", ms(inputLatency.percentile(0.5)),
+                                ms(inputLatency.percentile(0.99)), ms(inputLatency.max()));
+        lines[2] = String.format("%.0f FPS, %.0f kroków/s, doganianie: %d klatek, porzucone kroki: %d",
+                loop.renderFps(), loop.simHz(), loop.catchUpFrames(), loop.droppedSteps());
+        lines[3] = String.format("platformy %d  monety %d  kolce %d  chunki świata: %d z kolejki, %d na miejscu, %d wspólnych",
+                sim.platforms().size(), sim.coins().size(), sim.spikes().size(), worldGen.hits(), worldGen.misses(),
+                worldGen.shared());
+
+        long bytes = allocatedBytes();
+        if (bytes >= 0 && lastAllocBytes >= 0 && now > lastAllocAt) {
+            allocRate = Math.max(0, bytes - lastAllocBytes) * 1e9 / (now - lastAllocAt);
+        }
+        lastAllocBytes = bytes;
+        lastAllocAt = now;
+        lines[4] = bytes < 0 ? "alokacje: brak pomiaru w tej JVM"
+                             : String.format("alokacje: %.2f MB/s", allocRate / (1024 * 1024));
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+
+    /** Suma bajtów zaalokowanych przez żyjące wątki (-1, gdy JVM tego nie mierzy). */
+    private long allocatedBytes() {
+        if (threads == null) return -1;
+        long sum = 0;
+        for (long b : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) if (b > 0) sum += b;
+        return sum;
+    }
+
+    private static com.sun.management.ThreadMXBean allocMxBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t
+                && t.isThreadAllocatedMemorySupported()) {
+            if (!t.isThreadAllocatedMemoryEnabled()) t.setThreadAllocatedMemoryEnabled(true);
+            return t;
+        }
+        return null;
+    }
+}
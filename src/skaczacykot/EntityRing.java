@@ -0,0 +1,137 @@
+package skaczacykot;
+
+/**
+ * Magazyn obiektów świata w układzie "struktura tablic" (x, y, w, h jako osobne int[]),
+ * trzymany jako bufor cykliczny uporządkowany po pasach y świata.
+ * <p>
+ * Świat rośnie tylko w górę, więc nowe obiekty dopisujemy na końcu (w tym samym lub wyższym
+ * pasie), a sprzątanie pod kamerą przesuwa jedynie początek bufora – bez kompaktowania.
+ * Indeksy logiczne 0..size()-1 idą od najniższego do najwyższego obiektu.
+ * <p>
+ * Indeks przestrzenny: dla każdego pasa o wysokości {@code bandH} pamiętamy pierwszy obiekt,
+ * więc zapytanie o zakres y to dwa odczyty tablicy – niezależnie od gęstości świata.
+ * Wewnątrz pasa kolejność y jest dowolna (np. kilka platform w jednym rzędzie).
+ */
+final class EntityRing {
+
+    private final int bandH;
+
+    private int[] xs, ys, ws, hs;
+    private boolean[] dead;
+    private int mask;
+    private int head;   // fizyczny indeks elementu logicznego 0
+    private int size;
+
+    // Pas -> numer sekwencyjny pierwszego obiektu w tym pasie lub wyżej (bufor cykliczny po numerze pasa)
+    private long[] bandFirst;
+    private int bandMask;
+    private long headSeq;            // numer sekwencyjny elementu logicznego 0 (ile usunięto od początku)
+    private int topBand, bottomBand; // pasy najwyższego i najniższego obiektu (gdy size > 0)
+
+    EntityRing(int initialCapacity, int bandH) {
+        this.bandH = bandH;
+        int cap = Integer.highestOneBit(Math.max(2, initialCapacity) - 1) << 1;
+        xs = new int[cap]; ys = new int[cap]; ws = new int[cap]; hs = new int[cap];
+        dead = new boolean[cap];
+        mask = cap - 1;
+        bandFirst = new long[16];
+        bandMask = bandFirst.length - 1;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+        headSeq = 0;
+    }
+
+    int size() { return size; }
+
+    /** Dopisuje obiekt w pasie najwyższego obiektu lub wyżej (świat nie rośnie w dół). */
+    void add(int x, int y, int w, int h) {
+        int band = Math.floorDiv(y, bandH);
+        long seq = headSeq + size;
+        if (size == 0) {
+            topBand = bottomBand = band;
+            bandFirst[band & bandMask] = seq;
+        } else if (band > topBand) {
+            throw new IllegalArgumentException("Obiekty muszą być dodawane w górę świata: y=" + y);
+        } else if (band < topBand) {
+            while (bottomBand - band + 1 > bandFirst.length) growBands();
+            for (int b = topBand - 1; b >= band; b--) bandFirst[b & bandMask] = seq; // także puste pasy
+            topBand = band;
+        }
+
+        if (size == mask + 1) grow();
+        int p = (head + size) & mask;
+        xs[p] = x; ys[p] = y; ws[p] = w; hs[p] = h;
+        dead[p] = false;
+        size++;
+    }
+
+    private void grow() {
+        int cap = (mask + 1) << 1;
+        int[] x = new int[cap], y = new int[cap], w = new int[cap], h = new int[cap];
+        boolean[] d = new boolean[cap];
+        for (int i = 0; i < size; i++) {
+            int p = (head + i) & mask;
+            x[i] = xs[p]; y[i] = ys[p]; w[i] = ws[p]; h[i] = hs[p]; d[i] = dead[p];
+        }
+        xs = x; ys = y; ws = w; hs = h; dead = d;
+        mask = cap - 1;
+        head = 0;
+    }
+
+    private void growBands() {
+        long[] nb = new long[bandFirst.length << 1];
+        int nm = nb.length - 1;
+        for (int b = topBand; b <= bottomBand; b++) nb[b & nm] = bandFirst[b & bandMask];
+        bandFirst = nb;
+        bandMask = nm;
+    }
+
+    int x(int i) { return xs[(head + i) & mask]; }
+    int y(int i) { return ys[(head + i) & mask]; }
+    int w(int i) { return ws[(head + i) & mask]; }
+    int h(int i) { return hs[(head + i) & mask]; }
+
+    boolean alive(int i) { return !dead[(head + i) & mask]; }
+
+    /** Oznacza obiekt jako usunięty (np. zebrana moneta) – bez przesuwania pozostałych. */
+    void kill(int i) { dead[(head + i) & mask] = true; }
+
+    /** Usuwa obiekty z początku bufora leżące niżej niż {@code killY} (y > killY). */
+    void dropBelow(int killY) {
+        while (size > 0 && ys[head] > killY) {
+            head = (head + 1) & mask;
+            headSeq++;
+            size--;
+        }
+        if (size > 0) bottomBand = Math.floorDiv(ys[head], bandH);
+    }
+
+    /**
+     * Pierwszy indeks logiczny pasa zawierającego {@code yMax} – początek zakresu zapytania.
+     * Zakres [first(yMax), end(yMin)) obejmuje wszystkie obiekty z y w [yMin, yMax]
+     * (z dokładnością do pasa – dokładny test robi wywołujący).
+     */
+    int first(int yMax) {
+        if (size == 0) return 0;
+        int b = Math.floorDiv(yMax, bandH);
+        if (b >= bottomBand) return 0;
+        if (b < topBand) return size;
+        return (int) Math.max(0, bandFirst[b & bandMask] - headSeq);
+    }
+
+    /** Indeks logiczny za ostatnim obiektem pasa zawierającego {@code yMin} (wyłącznie). */
+    int end(int yMin) {
+        if (size == 0) return 0;
+        int b = Math.floorDiv(yMin, bandH) - 1;
+        if (b < topBand) return size;
+        if (b >= bottomBand) return 0;
+        return (int) Math.max(0, bandFirst[b & bandMask] - headSeq);
+    }
+
+    @Override public String toString() {
+        return "EntityRing[size=" + size + ", capacity=" + (mask + 1) + ", bands=" + topBand + ".." + bottomBand + "]";
+    }
+}
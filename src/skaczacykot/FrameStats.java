@@ -0,0 +1,43 @@
+package skaczacykot;
+
+import java.util.Arrays;
+
+/**
+ * Czasy ostatnich N pomiarów (np. kroku symulacji albo klatki) w pierścieniu,
+ * z percentylami liczonymi na żądanie. Zapis nie alokuje; wywołujący dba o synchronizację.
+ */
+final class FrameStats {
+    private final long[] samples;
+    private final long[] sorted;
+    private int next, count;
+
+    FrameStats(int window) {
+        samples = new long[window];
+        sorted = new long[window];
+    }
+
+    void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) count++;
+    }
+
+    int count() { return count; }
+
+    /** Przelicza percentyle z bieżącego okna (kopia + sortowanie, bez alokacji). */
+    void snapshot() {
+        System.arraycopy(samples, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+    }
+
+    /** Percentyl {@code p} (0..1) z ostatniego {@link #snapshot()}, w nanosekundach. */
+    long percentile(double p) {
+        if (count == 0) return 0;
+        int i = (int) Math.ceil(p * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, i))];
+    }
+
+    long max() {
+        return count == 0 ? 0 : sorted[count - 1];
+    }
+}
@@ -0,0 +1,121 @@
+package skaczacykot;
+
+/**
+ * Pętla gry na osobnym wątku: stały krok symulacji (akumulator) i rysowanie
+ * z interpolacją między poprzednim a bieżącym stanem.
+ */
+final class GameLoop implements Runnable {
+
+    /** Odbiorca pętli – logika (stały krok) i rysowanie (alpha w [0,1)). */
+    interface Target {
+        void tick(double dt);
+        void render(double alpha);
+    }
+
+    private static final long NANOS = 1_000_000_000L;
+
+    private final Target target;
+    private final double dt;
+    private final int maxStepsPerFrame;   // limit "doganiania" po przycięciu
+    private final long minFrameNanos;     // limit FPS rysowania (0 = bez limitu)
+
+    private volatile boolean running;
+    private Thread thread;
+    private long tickTime;   // nominalny koniec bieżącego kroku (System.nanoTime) – tylko wątek pętli
+
+    // Pomiary (odświeżane co sekundę)
+    private volatile double simHz;
+    private volatile double renderFps;
+    // Liczniki od startu: klatki z więcej niż jednym krokiem (pętla się spóźniła) i kroki porzucone po limicie
+    private volatile long catchUpFrames, droppedSteps;
+
+    GameLoop(Target target, double dt, int maxStepsPerFrame, int maxFps) {
+        this.target = target;
+        this.dt = dt;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+        this.minFrameNanos = maxFps > 0 ? NANOS / maxFps : 0;
+    }
+
+    void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    double simHz()     { return simHz; }
+    double renderFps() { return renderFps; }
+    long catchUpFrames() { return catchUpFrames; }
+    long droppedSteps()  { return droppedSteps; }
+
+    /**
+     * Chwila (System.nanoTime), której odpowiada koniec bieżącego kroku – przy doganianiu kolejne
+     * kroki jednej klatki dostają kolejne chwile z przeszłości. Tylko z {@link Target#tick}.
+     */
+    long tickTime() { return tickTime; }
+
+    @Override public void run() {
+        final long stepNanos = (long) (dt * NANOS);
+        long prev = System.nanoTime();
+        long acc = 0;
+
+        long statsStart = prev;
+        int ticks = 0, frames = 0;
+
+        while (running) {
+            long now = System.nanoTime();
+            acc += now - prev;
+            prev = now;
+
+            // Stały krok – przy dużym opóźnieniu doganiamy maks. maxStepsPerFrame kroków,
+            // resztę czasu porzucamy (gra zwalnia zamiast "spirali śmierci")
+            int steps = 0;
+            while (acc >= stepNanos) {
+                if (steps == maxStepsPerFrame) {
+                    droppedSteps += acc / stepNanos;
+                    acc %= stepNanos;
+                    break;
+                }
+                tickTime = now - acc + stepNanos;
+                target.tick(dt);
+                acc -= stepNanos;
+                steps++;
+            }
+            ticks += steps;
+            if (steps > 1) catchUpFrames++;
+
+            target.render(acc / (double) stepNanos);
+            frames++;
+
+            if (now - statsStart >= NANOS) {
+                double secs = (now - statsStart) / (double) NANOS;
+                simHz = ticks / secs;
+                renderFps = frames / secs;
+                ticks = 0; frames = 0;
+                statsStart = now;
+            }
+
+            // Śpij do następnej klatki (lub najbliższego kroku, gdy brak limitu FPS)
+            long frameEnd = now + (minFrameNanos > 0 ? minFrameNanos : stepNanos - acc);
+            long sleep = frameEnd - System.nanoTime();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep / 1_000_000L, (int) (sleep % 1_000_000L));
+                } catch (InterruptedException e) {
+                    if (!running) return;
+                }
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+}
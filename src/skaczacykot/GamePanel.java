@@ -3,474 +3,621 @@ package skaczacykot;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.util.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-
-public class GamePanel extends JComponent implements ActionListener, KeyListener {
-
-    // --- Config (świat i kamera) ---
-    private static final int TARGET_FPS = 60;
-    private static final double DT = 1.0 / TARGET_FPS;
-
-    private static final int WORLD_W = 1920;   // szerokość świata (współrzędne rysowania)
-    private static final int VIEW_H  = 1080;   // wysokość widoku (przestrzeń "kamery")
-    private static final int START_FLOOR_Y = 520; // startowa "ziemia" pod graczem (wsp. świata)
-
-    // Ruch/sterowanie
-    private static final double GRAVITY    = 2000;
-    private static final double MOVE_ACCEL = 3000;
-    private static final double MOVE_MAX   = 450;
-    private static final double JUMP_VY    = 1200; // Max skok to ok. 360 px
-
-    // Scroll kamery (px/s) – lekko rośnie w czasie
-    private static final double SCROLL_SPEED_BASE = 120;
-    private static final double SCROLL_SPEED_GROW = 0.015; // przyrost prędkości na sekundę
-
-    // Generowanie platform
-    private static final int MIN_PLAT_W = 220;
-    private static final int MAX_PLAT_W = 420;
-    private static final int PLAT_H     = 40;
-    private static final int STEP_HEIGHT = 300; // Maksymalny ZASIĘG skoku w pionie to ok. 360px. 300px jest bezpieczne.
-    private static final int MAX_HORIZ_GAP = 500; // Maksymalny bezpieczny dystans poziomy (max zasięg to ok. 540px)
-    private static final double COIN_PROB = 0.45; // szansa monety na platformie
-    
-    // ZWIĘKSZONA CZĘSTOTLIWOŚĆ KOLCÓW (20% szansy)
-    private static final double SPIKE_PROB = 0.20; 
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+public class GamePanel extends JComponent implements GameLoop.Target, KeyListener {
+
+    // --- Config (pętla i widok) ---
+    private static final int MAX_CATCHUP_STEPS = 5;  // maks. kroków symulacji na jedną klatkę
+    private static final int MAX_RENDER_FPS = 240;   // limit rysowania (monitory o wysokim odświeżaniu)
+    private static final long FIRST_SEED = 42;
+    private static final int ANIM_TICKS = 8;         // klatka animacji co 8 kroków (ok. 0.13 s)
+    private static final int INPUT_QUEUE_SIZE = 256;   // zdarzeń klawiszy między krokami (potęga 2)
+    private static final int WORLD_AHEAD_CHUNKS = 3;  // chunki świata gotowe nad bieżącym (ok. 6 ekranów)
+    private static final int SPLIT_LINE = 4;          // px linii między widokami graczy
+
+    // Klawisze graczy {w lewo, w prawo, skok} (kolejność jak InputQueue.KEY_*); gracz 1 jak w grze jednoosobowej
+    private static final int[][] PLAYER_KEYS = {
+        {KeyEvent.VK_LEFT,    KeyEvent.VK_RIGHT,   KeyEvent.VK_SPACE},
+        {KeyEvent.VK_A,       KeyEvent.VK_D,       KeyEvent.VK_W},
+        {KeyEvent.VK_J,       KeyEvent.VK_L,       KeyEvent.VK_I},
+        {KeyEvent.VK_NUMPAD4, KeyEvent.VK_NUMPAD6, KeyEvent.VK_NUMPAD8},
+    };
+    static final int MAX_PLAYERS = PLAYER_KEYS.length;
+
+    private static final int WORLD_W = Simulation.WORLD_W;
+    private static final int VIEW_H  = Simulation.VIEW_H;
 
     // --- State ---
-    private final javax.swing.Timer timer;
+    private final GameLoop loop;
+    // Stan gry modyfikowany jest w wątku pętli, a czytany w EDT (rysowanie, klawisze)
+    private final Object lock = new Object();
 
-    private boolean paused = false;
-    private boolean gameOver = false;
+    private final ChunkPrefetcher worldGen = new ChunkPrefetcher(WORLD_AHEAD_CHUNKS); // świat liczony w tle (wspólny dla graczy)
+    private final Random seeds = new Random(); // ziarna kolejnych gier po restarcie
+
+    // Gracze: 1 = zwykła gra, 2..4 = wyścig na tym samym ziarnie i podzielonym ekranie.
+    // Tablica podmieniana w całości pod lock (klawisze czytają ją bez lock)
+    private volatile Player[] players = {new Player(0, FIRST_SEED, worldGen)};
+    private final int[] inputs = new int[MAX_PLAYERS];   // ramki wejścia bieżącego kroku
+    private Player painting;                             // gracz, którego widok właśnie rysujemy
 
-    // Player (współrzędne świata)
-    private double px, py;
-    private double vx, vy;
-    private boolean onGround;
+    private boolean paused = false;
+    private volatile double renderAlpha = 1;   // ułamek kroku od ostatniej aktualizacji (0..1); tryb pasywny: pisze pętla, czyta EDT
 
-    // Kamera (przesuwa się w górę – zmniejsza camY)
-    private double camY = 0;           // górny offset kamery względem świata (y świata - camY => y na ekranie)
-    private double totalTime = 0;      // suma czasu (do przyrostu prędkości)
+    // Tryb aktywny: pętla rysuje do BufferStrategy zamiast repaint() (null = tryb pasywny)
+    private volatile ActiveCanvas activeCanvas;
 
     // Animacje / grafiki
     private BufferedImage bg;
     private BufferedImage platformImg, spikeImg;
     private final BufferedImage[] catFrames  = new BufferedImage[4];
     private final BufferedImage[] coinFrames = new BufferedImage[8];
-    private int catFrameId = 0;
-    private int coinFrameId = 0;
-    private double animTime = 0;
 
-    // Obiekty świata
-    private static class Plat { int x, y, w, h; Plat(int x,int y,int w,int h){this.x=x;this.y=y;this.w=w;this.h=h;} }
-    private static class Coin { int x, y; Coin(int x,int y){this.x=x;this.y=y;} }
+    // Atlas małych sprite'ów (numery w atlasie, -1 = brak grafiki); nowy zestaw po dojściu grafik
+    private Assets.AtlasSpec atlasSpec = new Assets.AtlasSpec();
+    private final int[][] catIds = new int[catFrames.length][2];   // [klatka][0 = w prawo, 1 = w lewo]
+    private final int[] coinIds = new int[coinFrames.length];
+    private int spikeId = -1;
 
-    private final List<Plat> platforms = new ArrayList<>();
-    private final List<Point> spikes   = new ArrayList<>();
-    private final List<Coin>  coins    = new ArrayList<>();
+    // Gradient zastępczy tła (gdy brak bg.png); platformy i kolce wypieka BandLayer gracza
+    private GradientPaint fallbackSky;
+    private static final Font LABEL_FONT = new Font(Font.SANS_SERIF, Font.BOLD, 18);
+    private static final Color LABEL_BOX = new Color(0, 0, 0, 150);
 
-    // Sterowanie
-    private boolean left, right;
-    private boolean jumpKeyDown = false;
-    private boolean jumpQueued  = false;
+    // Wewnętrzna rozdzielczość świata (HiDPI, skala stała albo dobierana do czasu klatki)
+    private final RenderScale renderScale = new RenderScale();
+    private final ActiveCanvas.Painter worldPainter = this::paintWorld;
 
-    // Wynik
-    private int score = 0;
-    private int coinsCollected = 0;
+    // Wczytywanie zasobów w tle – gra rusza, gdy gotowe są grafiki pierwszej klatki
+    private volatile boolean ready;
+    private final AtomicInteger loadDone = new AtomicInteger();
+    private int loadTotal;
 
     // HUD callbacki
     public interface HudUpdater { void update(int score, int coins); }
-    public interface GameOverListener { void onGameOver(int finalScore, int coins); }
+    public interface GameOverListener { void onGameOver(StatsStore.Run run); }   // wołany w wątku pętli
+    public interface LoadListener { void progress(int done, int total); }
+    public interface RaceOverListener { void onRaceOver(List<StatsStore.Run> runs); }   // w kolejności graczy, wątek pętli
 
     private final HudUpdater hudUpdater;
     private final GameOverListener gameOverListener;
+    private final LoadListener loadListener;
+    private volatile RaceOverListener raceOverListener;
+
+    // HUD aktualizowany w EDT – jedno oczekujące zadanie naraz
+    private volatile int hudScore, hudCoins;
+    private volatile boolean hudPending;
+    private final Runnable hudTask = this::flushHud;
+
+    // Nakładka diagnostyczna (F3) – pomiary zbierane zawsze, pod lock
+    private final DebugOverlay debug = new DebugOverlay();
 
     // Dźwięk
     private final SoundManager sound = new SoundManager();
 
-    // RNG i generacja
-    private final Random rnd = new Random(42);
-    private int nextSpawnY;  // najbliższa Y (świata) do wygenerowania kolejnej platformy (idąc w górę zmniejszamy y)
-
     public GamePanel(HudUpdater hudUpdater, GameOverListener gameOverListener) {
+        this(hudUpdater, gameOverListener, null);
+    }
+
+    /** @param loadListener postęp wczytywania zasobów (wołany w EDT), może być null */
+    public GamePanel(HudUpdater hudUpdater, GameOverListener gameOverListener, LoadListener loadListener) {
         this.hudUpdater = hudUpdater;
         this.gameOverListener = gameOverListener;
+        this.loadListener = loadListener;
 
         setFocusable(true);
         setOpaque(true);
         setBackground(new Color(230,230,230));
         setPreferredSize(new Dimension(1100, 700));
+        setLayout(new BorderLayout());
 
         addKeyListener(this);
-        initAssets();
         initWorld();
 
-        timer = new javax.swing.Timer((int) Math.round(1000.0 / TARGET_FPS), this);
+        loop = new GameLoop(this, Simulation.DT, MAX_CATCHUP_STEPS, MAX_RENDER_FPS);
+        initAssets();
+    }
 
-        timer.start();
+    /**
+     * Jeden gracz: własna symulacja, klawisze, nagranie i wypieczone pasy widoku.
+     * Wspólne są pętla, źródło świata, sprite'y ({@link Assets}), skala renderowania i dźwięk –
+     * kolejny gracz to głównie koszt jego kroków symulacji.
+     */
+    private static final class Player {
+        final int index;
+        final Simulation sim;
+        final InputQueue input = new InputQueue(INPUT_QUEUE_SIZE);   // zdarzenia klawiszy ze znacznikiem czasu
+        final InputRecorder recorder = new InputRecorder();          // zapis wejścia (powtórka)
+        final BandLayer bands = new BandLayer();                     // wypieczone platformy i kolce (własna kamera)
+        double prevPx, prevPy, prevCamY;                             // stan z poprzedniego kroku (do interpolacji)
+
+        Player(int index, long seed, LevelGenerator.Source world) {
+            this.index = index;
+            sim = new Simulation(seed, world);
+        }
 
-        sound.playBgLoop("bg.wav");
+        /** Zapamiętuje stan przed krokiem – rysowanie interpoluje między nim a stanem bieżącym. */
+        void snapshot() {
+            prevPx = sim.px(); prevPy = sim.py();
+            prevCamY = sim.camY();
+        }
     }
 
     // --- Assets ---
+    /**
+     * Grafiki i dźwięki wczytywane równolegle w tle. Pętla gry rusza, gdy gotowe są tło,
+     * platforma, kolec i kot; monety i dźwięki dochodzą później (do tego czasu rysowane
+     * są zastępczo / gra jest cicha).
+     */
     private void initAssets() {
-        bg          = Assets.img("bg.png");
-        platformImg = Assets.img("platform.png");
-        spikeImg    = Assets.img("spike.png");
-        
-        
+        loadTotal = 3 + catFrames.length + coinFrames.length + 1;
+
+        CompletableFuture<?>[] critical = new CompletableFuture<?>[3 + catFrames.length];
+        critical[0] = load("bg.png",       img -> bg = Assets.opaque(img));
+        critical[1] = load("platform.png", img -> platformImg = img);
+        critical[2] = load("spike.png",    img -> spikeImg = img);
         for (int i = 0; i < catFrames.length; i++) {
-            catFrames[i]  = Assets.img("cat_run_" + i + ".png");
-            
+            int k = i;
+            critical[3 + i] = load("cat_run_" + i + ".png", img -> catFrames[k] = img);
         }
-        
         for (int i = 0; i < coinFrames.length; i++) {
-            coinFrames[i] = Assets.img("coin_" + i + ".png");
-            
-        }
-        
-    }
-
-    // --- World init ---
-    private void initWorld() {
-        // Reset
-        platforms.clear();
-        spikes.clear();
-        coins.clear();
-
-        // Pozycja gracza – stoi na pierwszej platformie/ziemi
-        px = WORLD_W / 2.0;
-        py = START_FLOOR_Y - 32; // (środek gracza 32px nad górą platformy => stopy na platformie)
-        vx = 0; vy = 0; onGround = true;
-
-        // Kamera na dole
-        camY = 0;
-        totalTime = 0;
-
-        // Płaska „ziemia” startowa
-        platforms.add(new Plat(0, START_FLOOR_Y, WORLD_W, 80));
-
-        // Wygeneruj kilka pierwszych platform w górę
-        nextSpawnY = START_FLOOR_Y - STEP_HEIGHT;  
-        while (nextSpawnY > -2*VIEW_H) { // generuj 2 ekrany w górę
-            spawnPlatformAt(nextSpawnY);
-            nextSpawnY -= STEP_HEIGHT;
+            int k = i;
+            load("coin_" + i + ".png", img -> coinFrames[k] = img);
         }
+        sound.load(Assets.loader()).whenComplete((v, e) -> assetLoaded());
 
-        // Wynik
-        score = 0;
-        coinsCollected = 0;
-        hudUpdater.update(score, coinsCollected);
-        gameOver = false;
-        
-        // RESETOWANIE STANU WEJŚCIA PO RESTARCIE - problem samoczynnego ruchu/skoku
-        left = false;
-        right = false;
-        jumpKeyDown = false;
-        jumpQueued = false;
-    }
-
-    private void spawnPlatformAt(int y) {
-        int w = rndBetween(MIN_PLAT_W, MAX_PLAT_W);
-        
-        // --- Logika generowania X (ograniczenie poziomego zasięgu) ---
-        int targetXMin = (int) px - MAX_HORIZ_GAP;
-        int targetXMax = (int) px + MAX_HORIZ_GAP;
-        int worldXMin = 80; 
-        int worldXMax = WORLD_W - 80 - w; 
-        
-        int minX = Math.max(targetXMin, worldXMin);
-        int maxX = Math.min(targetXMax, worldXMax);
-        
-        if (minX > maxX) {
-            minX = worldXMin;
-            maxX = worldXMax;
-        }
+        CompletableFuture.allOf(critical).whenComplete((v, e) -> startGame());
+    }
 
-        int x = rndBetween(minX, maxX);
-        
-        // ------------------------------------------------------------------------
+    private CompletableFuture<?> load(String name, Consumer<BufferedImage> into) {
+        return Assets.imgAsync(name).thenAccept(img -> {
+            synchronized (lock) {
+                into.accept(img);
+                if (ready) buildAtlasSpec();
+            }
+            assetLoaded();
+        });
+    }
 
-        platforms.add(new Plat(x, y, w, PLAT_H));
+    private void assetLoaded() {
+        int done = loadDone.incrementAndGet();
+        repaint();
+        if (loadListener != null) SwingUtilities.invokeLater(() -> loadListener.progress(done, loadTotal));
+    }
 
-        // Czasem moneta na platformie
-        if (rnd.nextDouble() < COIN_PROB) {
-            int cx = x + rndBetween(24, Math.max(24, w - 24 - 32));
-            int cy = y - 40; // nad platformą
-            coins.add(new Coin(cx, cy));
+    private void startGame() {
+        synchronized (lock) {
+            buildAtlasSpec();
+            ready = true;
+            sound.playBgLoop("bg.wav");   // dźwięk tylko pod lock (jeden producent kolejki)
         }
+        loop.start();
+    }
 
-        // --- Generowanie kolców z użyciem SPIKE_PROB ---
-        if (spikeImg != null && w >= 128) { 
-            if (y == START_FLOOR_Y) {
-                // Kolce na ziemi startowej
-                spikes.add(new Point(WORLD_W/2 - 32, START_FLOOR_Y - 48));
-            } else if (rnd.nextDouble() < SPIKE_PROB) { // Wykorzystanie ZWIĘKSZONEJ szansy
-                int spX = x + rndBetween(32, w - 64 - 32); 
-                int spY = y - 48; 
-                spikes.add(new Point(spX, spY));
-            }
+    /** Zestaw do atlasu z grafik wczytanych do tej pory (pod lock). */
+    private void buildAtlasSpec() {
+        Assets.AtlasSpec spec = new Assets.AtlasSpec();
+        for (int i = 0; i < catFrames.length; i++) {
+            catIds[i][0] = spec.add(catFrames[i], 128, 128, false);
+            catIds[i][1] = spec.add(catFrames[i], 128, 128, true);
         }
-        // ----------------------------------------------------
+        for (int i = 0; i < coinFrames.length; i++) {
+            coinIds[i] = spec.add(coinFrames[i], Simulation.COIN_SIZE, Simulation.COIN_SIZE, false);
+        }
+        spikeId = spec.add(spikeImg, Simulation.SPIKE_SIZE, Simulation.SPIKE_SIZE, false);
+        atlasSpec = spec;
     }
 
-    private int rndBetween(int a, int b) {
-        return a + rnd.nextInt(Math.max(1, b - a + 1));
+    /** Czy wczytano grafiki potrzebne do gry (wcześniej panel pokazuje postęp). */
+    public boolean isReady() { return ready; }
+
+    // --- World init ---
+    private void initWorld() {
+        for (Player p : players) {
+            p.recorder.reset(p.sim.seed());
+            p.snapshot();
+
+            // RESETOWANIE STANU WEJŚCIA PO RESTARCIE - problem samoczynnego ruchu/skoku
+            p.input.clear();
+        }
+        updateHud();
     }
 
     
     public void restart() {
-        initWorld();
-        paused = false;
+        synchronized (lock) {
+            long seed = seeds.nextLong();   // w wyścigu wszyscy na tym samym świecie
+            for (Player p : players) {
+                p.sim.reset(seed);
+                p.bands.clear();
+            }
+            initWorld();
+            paused = false;
+            sound.rewindBg();
+            sound.resumeBg();
+        }
         requestFocusInWindow();
-        sound.stopBg();
-        sound.playBgLoop("bg.wav");
     }
     public void togglePause() {
-        paused = !paused;
+        synchronized (lock) {
+            paused = !paused;
+            if (paused) sound.pauseBg();
+            else if (!allOver(players)) sound.resumeBg();
+        }
         requestFocusInWindow();
     }
 
-    // --- Pętla gry ---
-    @Override public void actionPerformed(ActionEvent e) {
-        if (paused || gameOver) { repaint(); return; }
-        step(DT);
-        repaint();
-    }
-
-    private void step(double dt) {
-        totalTime += dt;
-        animTime  += dt;
-        if (animTime > 0.12) {
-            animTime = 0;
-            catFrameId  = (catFrameId  + 1) % catFrames.length;
-            coinFrameId = (coinFrameId + 1) % coinFrames.length;
+    /**
+     * Liczba graczy (1..{@link #MAX_PLAYERS}); od 2 wyścig: każdy ma własną symulację na tym samym
+     * ziarnie, własne klawisze ({@link #PLAYER_KEYS}) i część ekranu. Zaczyna nową grę.
+     */
+    public void setPlayers(int n) {
+        if (n < 1 || n > MAX_PLAYERS) throw new IllegalArgumentException("Liczba graczy poza 1.." + MAX_PLAYERS + ": " + n);
+        synchronized (lock) {
+            Player[] old = players;
+            if (n != old.length) {
+                Player[] ps = Arrays.copyOf(old, n);
+                for (int i = old.length; i < n; i++) ps[i] = new Player(i, old[0].sim.seed(), worldGen);
+                players = ps;
+            }
         }
+        restart();
+    }
 
-        // Sterowanie poziome
-        double ax = 0;
-        if (left)  ax -= MOVE_ACCEL;
-        if (right) ax += MOVE_ACCEL;
+    public int playerCount() { return players.length; }
 
-        vx += ax * dt;
+    /** Wyniki wyścigu (2+ graczy), gdy skończą wszyscy; w grze jednoosobowej – {@link GameOverListener}. */
+    public void setRaceOverListener(RaceOverListener listener) { raceOverListener = listener; }
 
-        // Tłumienie bez wejścia
-        if (!left && !right) {
-            double fr = 2200 * dt;
-            if (Math.abs(vx) <= fr) vx = 0; else vx -= Math.signum(vx) * fr;
+    /** Włącza / wyłącza nakładkę diagnostyczną (F3). */
+    public void toggleDebugOverlay() {
+        synchronized (lock) {
+            debug.toggle();
         }
+        repaint();
+    }
 
-        // Ogranicz prędkość poziomą
-        if (vx >  MOVE_MAX) vx =  MOVE_MAX;
-        if (vx < -MOVE_MAX) vx = -MOVE_MAX;
+    /** Zmierzona częstotliwość symulacji (kroki/s). */
+    public double simHz()     { return loop.simHz(); }
+    /** Zmierzona liczba klatek rysowania na sekundę. */
+    public double renderFps() { return loop.renderFps(); }
+
+    // --- Pętla gry (wątek GameLoop) ---
+    @Override public void tick(double dt) {
+        synchronized (lock) {
+            Player[] ps = players;
+            // Zdarzenia do nominalnego końca kroku – także w pauzie, żeby stan klawiszy był aktualny
+            long until = loop.tickTime(), now = System.nanoTime();
+            for (Player p : ps) inputs[p.index] = p.input.sample(until, now, debug.inputLatency);
+            if (paused || allOver(ps)) return;
+
+            // Wszyscy gracze w tym samym kroku pętli
+            long t0 = System.nanoTime();
+            boolean alive = false, hud = false;
+            for (Player p : ps) {
+                if (p.sim.gameOver()) continue;
+                int events = step(p, inputs[p.index]);
+                if ((events & Simulation.EV_GAME_OVER) != 0) {
+                    playerOver(p);
+                    continue;
+                }
+                alive = true;
+                if (p.index == 0) hud = (events & Simulation.EV_COIN) != 0 || p.sim.score() % 30 == 0;
+            }
+            debug.tickTimes.record(System.nanoTime() - t0);
 
-        // Skok (edge trigger)
-        if (jumpQueued && onGround) {
-            vy = -JUMP_VY;
-            onGround = false;
-            jumpQueued = false;
-            sound.playSfx("jump.wav");
+            if (!alive) gameOver(ps);
+            else if (hud) updateHud();
         }
+    }
 
-        // Grawitacja tylko w locie
-        if (!onGround) vy += GRAVITY * dt; else vy = 0;
-
-        // Integracja
-        double newPx = px + vx * dt;
-        double newPy = py + vy * dt;
+    /** Krok symulacji jednego gracza (pod lock) – zwraca zdarzenia {@code EV_*}. */
+    private int step(Player p, int input) {
+        p.snapshot();
+        p.recorder.record(input);
+        JfrEvents.GameTick ev = JfrEvents.GameTick.enabled() ? new JfrEvents.GameTick() : null;
+        if (ev != null) ev.begin();
+        int events = p.sim.step(input);
+        if (ev != null) {
+            ev.player = p.index;
+            ev.tick = p.sim.ticks();
+            ev.input = input;
+            ev.events = events;
+            ev.platforms = p.sim.platforms().size();
+            ev.commit();
+        }
 
-        // Wrap poziomy
-        if (newPx < -64)       newPx = WORLD_W + 64;
-        if (newPx > WORLD_W + 64) newPx = -64;
+        if ((events & Simulation.EV_JUMP) != 0) sound.playSfx("jump.wav");
+        if ((events & Simulation.EV_COIN) != 0) sound.playSfx("coin.wav");
+        return events;
+    }
 
-        // Kolizje z platformami
-        Rectangle playerNext = new Rectangle((int)newPx - 40, (int)newPy - 64, 80, 96);
-        onGround = false;
+    private static boolean allOver(Player[] ps) {
+        for (Player p : ps) if (!p.sim.gameOver()) return false;
+        return true;
+    }
 
-        // kolizje tylko z platformami w pobliżu widoku
-        int viewTop    = (int)camY - 200;
-        int viewBottom = (int)camY + VIEW_H + 200;
+    @Override public void render(double alpha) {
+        ActiveCanvas canvas = activeCanvas;
+        if (canvas == null) {
+            renderAlpha = alpha;
+            repaint();
+            return;
+        }
+        synchronized (lock) {
+            renderAlpha = alpha;
+            canvas.renderFrame();
+        }
+    }
 
-        for (Plat plat : platforms) {
-            if (plat.y > viewBottom || plat.y + plat.h < viewTop) continue;
+    /**
+     * Przełącza tryb rysowania: aktywny (Canvas + BufferStrategy, rysuje pętla gry)
+     * lub pasywny (paintComponent przez repaint()).
+     */
+    public void setActiveRendering(boolean active) {
+        if (active == isActiveRendering()) return;
+        synchronized (lock) {
+            if (active) {
+                ActiveCanvas canvas = new ActiveCanvas(this::paintGame, 3);
+                canvas.addKeyListener(this);
+                add(canvas, BorderLayout.CENTER);
+                activeCanvas = canvas;
+            } else {
+                ActiveCanvas canvas = activeCanvas;
+                activeCanvas = null;
+                remove(canvas);
+            }
+        }
+        revalidate();
+        repaint();
+        requestFocusInWindow();
+    }
 
-            Rectangle r = new Rectangle(plat.x, plat.y, plat.w, plat.h);
-            if (!playerNext.intersects(r)) continue;
+    /** Wewnętrzna rozdzielczość świata: 0..1 albo {@link RenderScale#AUTO} (wg czasu klatki). */
+    public void setRenderScale(double scale) {
+        renderScale.setScale(scale);
+        repaint();
+    }
 
-            Rectangle playerCurr = new Rectangle((int)px - 40, (int)py - 64, 80, 96);
+    /** Filtr powiększania świata do panelu (przy skali poniżej 1). */
+    public void setRenderFilter(RenderScale.Filter filter) {
+        renderScale.setFilter(filter);
+        repaint();
+    }
 
-            // Lądowanie z góry
-            if (playerCurr.y + playerCurr.height <= r.y && vy >= 0) {
-                newPy = r.y - 32; // stopy na górze platformy
-                vy = 0;
-                onGround = true;
-                playerNext.setLocation((int)newPx - 40, (int)newPy - 64);
-            }
-            // Odbicie od sufitu
-            else if (playerCurr.y >= r.y + r.height && vy < 0) {
-                newPy = r.y + r.height + 64;
-                vy = 50;
-                playerNext.setLocation((int)newPx - 40, (int)newPy - 64);
-            }
-            // Z boku
-            else {
-                if (vx > 0) newPx = r.x - (playerNext.width / 2.0);
-                else        newPx = r.x + r.width + (playerNext.width / 2.0);
-                vx = 0;
-                playerNext.setLocation((int)newPx - 40, (int)newPy - 64);
-            }
-        }
+    public boolean isActiveRendering() {
+        return activeCanvas != null;
+    }
 
-        if (onGround) vy = 0;
-
-        // Kolizje monet
-        Rectangle playerHit = new Rectangle((int)newPx - 36, (int)newPy - 60, 72, 90);
-        for (int i = coins.size()-1; i >= 0; i--) {
-            Coin c = coins.get(i);
-            if (c.y > viewBottom || c.y < viewTop) continue;
-            if (playerHit.intersects(new Rectangle(c.x, c.y, 32, 32))) {
-                coins.remove(i);
-                coinsCollected++;
-                score += 20;
-                hudUpdater.update(score, coinsCollected);
-                sound.playSfx("coin.wav");
-            }
-        }
+    @Override public boolean requestFocusInWindow() {
+        ActiveCanvas canvas = activeCanvas;
+        return canvas != null ? canvas.requestFocusInWindow() : super.requestFocusInWindow();
+    }
 
-        // Kolizja z kolcami (Game Over)
-        Rectangle playerDanger = new Rectangle((int)px - 32, (int)py - 56, 64, 88); 
-        for (Point sp : spikes) {
-            Rectangle spikeHit = new Rectangle(sp.x + 8, sp.y + 16, 48, 32); 
-            if (playerDanger.intersects(spikeHit)) {
-                gameOver();
-                return;
-            }
+    /** HUD pokazuje gracza 1. */
+    private void updateHud() {
+        Simulation sim = players[0].sim;
+        hudScore = sim.score();
+        hudCoins = sim.coinsCollected();
+        if (!hudPending) {
+            hudPending = true;
+            SwingUtilities.invokeLater(hudTask);
         }
+    }
 
-        // Zatwierdź pozycję gracza
-        px = newPx; py = newPy;
+    private void flushHud() {
+        hudPending = false;
+        hudUpdater.update(hudScore, hudCoins);
+    }
 
-        // Auto–scroll kamery w górę (zmniejszamy Y, bo góra to ujemne wartości)
-        double scrollSpeed = SCROLL_SPEED_BASE + SCROLL_SPEED_GROW * (totalTime * 100.0);
-        camY -= scrollSpeed * dt;
+    /** Koniec gry jednego gracza (pod lock); powtórka to zawsze gra gracza 1. */
+    private void playerOver(Player p) {
+        sound.playSfx("hit.wav");
+        if (p.index == 0) saveReplay(p.recorder.finish(p.sim));
+    }
 
-        // Jeśli gracz spadnie poniżej dołu ekranu -> Game Over
-        double screenY = py - camY; 
-        if (screenY > VIEW_H + 120) {
-            gameOver();
+    /** Skończyli wszyscy gracze (pod lock). */
+    private void gameOver(Player[] ps) {
+        sound.pauseBg();
+        updateHud();
+        if (ps.length == 1) {
+            if (gameOverListener != null) gameOverListener.onGameOver(run(ps[0].sim));
             return;
         }
+        RaceOverListener race = raceOverListener;
+        if (race == null) return;
+        List<StatsStore.Run> runs = new ArrayList<>(ps.length);
+        for (Player p : ps) runs.add(run(p.sim));
+        race.onRaceOver(runs);
+    }
 
-        // Generowanie platform wyżej, jeśli zbliżamy się do góry widoku
-        while (nextSpawnY > camY - VIEW_H) {
-            spawnPlatformAt(nextSpawnY);
-            nextSpawnY -= STEP_HEIGHT;
-        }
-
-        // Sprzątanie obiektów daleko poniżej widoku
-        int killY = (int)camY + VIEW_H + 400;
-        platforms.removeIf(p -> p.y > killY);
-        coins.removeIf(c -> c.y > killY);
-        spikes.removeIf(sp -> sp.y > killY); 
-
-        // Punkty rosną z czasem/przesuwem
-        score += 1;
-        if (score % 30 == 0) hudUpdater.update(score, coinsCollected);
+    private static StatsStore.Run run(Simulation sim) {
+        return new StatsStore.Run(System.currentTimeMillis(), sim.seed(), sim.ticks(), sim.score(), sim.coinsCollected(),
+                sim.height(), sim.deathCause());
     }
 
-    private void gameOver() {
-        gameOver = true;
-        sound.playSfx("hit.wav");
-        sound.stopBg();
-        if (gameOverListener != null) gameOverListener.onGameOver(score, coinsCollected);
+    /** Zapis powtórki w tle – plik do odtworzenia przez {@link Replay}. */
+    private static void saveReplay(byte[] data) {
+        CompletableFuture.runAsync(() -> {
+            try {
+                InputRecorder.write(Replay.lastRunFile(), data);
+            } catch (IOException e) {
+                System.err.println("Nie udało się zapisać powtórki: " + e);
+            }
+        });
     }
 
     // --- Render ---
     @Override protected void paintComponent(Graphics g) {
         super.paintComponent(g);
+        if (activeCanvas != null) return; // rysuje pętla gry
         Graphics2D g2 = (Graphics2D) g.create();
+        synchronized (lock) {
+            paintGame(g2, getWidth(), getHeight());
+        }
+        g2.dispose();
+    }
 
-        // 1. ZAPISZ oryginalną transformację
-        AffineTransform systemTransform = g2.getTransform();
+    private void paintGame(Graphics2D g2, int w, int h) {
+        if (!ready) {
+            paintLoading(g2, w, h);
+            return;
+        }
+        JfrEvents.RenderFrame ev = JfrEvents.RenderFrame.enabled() ? new JfrEvents.RenderFrame() : null;
+        if (ev != null) ev.begin();
+        long t0 = System.nanoTime();
+
+        // Widoki graczy: 1 – cały panel, 2 – obok siebie, 3..4 – siatka 2x2 (równe, więc wspólne sprite'y i bufor)
+        Player[] ps = players;
+        int cols = ps.length == 1 ? 1 : 2, rows = (ps.length + cols - 1) / cols;
+        int vw = w / cols, vh = h / rows;
+        if (ps.length > 1) {
+            g2.setColor(Color.BLACK);
+            g2.fillRect(0, 0, w, h);
+        }
+        for (int i = 0; i < ps.length; i++) {
+            Graphics2D vg = ps.length == 1 ? g2 : (Graphics2D) g2.create(i % cols * vw, i / cols * vh, vw, vh);
+            painting = ps[i];
+            renderScale.paint(vg, vw, vh, worldPainter);
+
+            // --- UI / OVERLAY --- (zawsze w pełnej rozdzielczości panelu)
+            if (!paused && ps[i].sim.gameOver()) drawOverlayText(vg, vw, vh, "KONIEC GRY");
+            if (ps.length > 1) {
+                drawPlayerLabel(vg, vh, ps[i]);
+                vg.dispose();
+            }
+        }
+        if (ps.length > 1) {
+            g2.setColor(Color.BLACK);
+            for (int c = 1; c < cols; c++) g2.fillRect(c * vw - SPLIT_LINE / 2, 0, SPLIT_LINE, h);
+            for (int r = 1; r < rows; r++) g2.fillRect(0, r * vh - SPLIT_LINE / 2, w, SPLIT_LINE);
+        }
+        if (paused) drawOverlayText(g2, w, h, "PAUZA");
+        if (debug.isVisible()) debug.draw(g2, loop, ps[0].sim, worldGen, renderScale);
+
+        long nanos = System.nanoTime() - t0;
+        debug.renderTimes.record(nanos);
+        renderScale.frame(nanos);
+        if (ev != null) {
+            ev.width = w;
+            ev.height = h;
+            ev.scale = renderScale.scale();
+            ev.alpha = renderAlpha;
+            ev.active = activeCanvas != null;
+            ev.commit();
+        }
+    }
+
+    /** Świat z perspektywy gracza {@link #painting}. */
+    private void paintWorld(Graphics2D g2, int w, int h) {
+        Player p = painting;
+        Simulation sim = p.sim;
 
-        int w = getWidth(), h = getHeight();
+        // Stan interpolowany między ostatnimi dwoma krokami symulacji
+        double a = paused || sim.gameOver() ? 1 : renderAlpha;
+        double camY = lerp(p.prevCamY, sim.camY(), a);
+        double py = lerp(p.prevPy, sim.py(), a);
+        double px = Math.abs(sim.px() - p.prevPx) > WORLD_W / 2.0 ? sim.px() : lerp(p.prevPx, sim.px(), a); // bez "przelotu" przy zawijaniu
+        EntityRing coins = sim.coins(), spikes = sim.spikes();
+        long frame = sim.ticks() / ANIM_TICKS;
 
-        // Skala rysowania gry (świat 1920x1080 -> panel)
+        // Skala rysowania gry (świat 1920x1080 -> piksele, w których rysujemy – patrz RenderScale)
         double sx = w / (double) WORLD_W;
         double sy = h / (double) VIEW_H;
-        g2.scale(sx, sy);
+
+        // Sprite'y przeskalowane do rozmiaru ekranu – rysowane 1:1 we współrzędnych panelu
+        Assets.Sprites sprites = Assets.forScale(sx, sy);
+        Assets.Atlas atlas = sprites.atlas(atlasSpec);
 
         // --- RYSOWANIE GRY (Tło, platformy, kot) ---
-        
+
         // Tło
         if (bg != null) {
-            int bgH = VIEW_H;
-            int offset = (int)((Math.abs(camY)) % bgH); 
-            g2.drawImage(bg, 0, offset - bgH, WORLD_W, offset, 0, 0, bg.getWidth(), bg.getHeight(), null);
-            g2.drawImage(bg, 0, offset, WORLD_W, offset + bgH, 0, 0, bg.getWidth(), bg.getHeight(), null);
+            BufferedImage bgs = sprites.get(bg, WORLD_W, VIEW_H, false);
+            int bgH = bgs.getHeight();
+            int offset = (int) ((Math.abs(camY) % VIEW_H) * sy);
+            g2.drawImage(bgs, 0, offset - bgH, null);
+            g2.drawImage(bgs, 0, offset, null);
         } else {
-            g2.setPaint(new GradientPaint(0, (float)camY, new Color(210,230,255),
-                                          0, (float)(camY+VIEW_H), new Color(150,180,255)));
-            g2.fillRect(0, (int)camY, WORLD_W, VIEW_H);
+            if (fallbackSky == null || fallbackSky.getPoint2().getY() != h) {
+                fallbackSky = new GradientPaint(0, 0, new Color(210,230,255), 0, h, new Color(150,180,255));
+            }
+            g2.setPaint(fallbackSky);
+            g2.fillRect(0, 0, w, h);
         }
 
-        g2.translate(0, -camY); // Kamera
+        // Rysujemy tylko pasy przecinające się z kamerą
+        int viewTop = (int) Math.floor(camY), viewBottom = (int) Math.ceil(camY + VIEW_H);
 
-        // Platformy
-        for (Plat p : platforms) {
-            if (platformImg != null) {
-                for (int x = p.x; x < p.x + p.w; x += platformImg.getWidth()) {
-                    int dw = Math.min(platformImg.getWidth(), p.x + p.w - x);
-                    g2.drawImage(platformImg, x, p.y, x+dw, p.y + p.h, 0, 0, dw, platformImg.getHeight(), null);
-                }
-            } else {
-                g2.setColor(new Color(70,140,70));
-                g2.fillRect(p.x, p.y, p.w, p.h);
-            }
-        }
+        // Platformy i kolce – wypieczone pasy świata, jedno kopiowanie na pas
+        p.bands.draw(g2, sim, sprites, atlas, spikeId, platformImg, camY, viewTop, viewBottom);
 
         // Monety
-        BufferedImage coin = coinFrames[coinFrameId];
-        for (Coin c : coins) {
-            if (coin != null) g2.drawImage(coin, c.x, c.y, 32, 32, null);
-            else { g2.setColor(Color.YELLOW); g2.fillOval(c.x, c.y, 32, 32); }
+        int coinId = coinIds[(int) (frame % coinIds.length)];
+        for (int i = coins.first(viewBottom), n = coins.end(viewTop - Simulation.COIN_SIZE); i < n; i++) {
+            if (!coins.alive(i)) continue;
+            int dx = (int) Math.floor(coins.x(i) * sx), dy = (int) Math.floor((coins.y(i) - camY) * sy);
+            if (coinId >= 0) atlas.draw(g2, coinId, dx, dy);
+            else { g2.setColor(Color.YELLOW); g2.fillOval(dx, dy, (int) (Simulation.COIN_SIZE * sx), (int) (Simulation.COIN_SIZE * sy)); }
         }
 
-        // Kolce
-        for (Point sp : spikes) {
-            if (spikeImg != null) g2.drawImage(spikeImg, sp.x, sp.y, 64, 64, null);
-            else {
-                g2.setColor(Color.RED);
-                g2.fillPolygon(new int[]{sp.x, sp.x+32, sp.x+64}, new int[]{sp.y+64, sp.y, sp.y+64}, 3);
+        // Kolce bez grafiki – zastępcze trójkąty (z grafiką są w wypieczonych pasach)
+        if (spikeId < 0) {
+            int dw = (int) (Simulation.SPIKE_SIZE * sx), dh = (int) (Simulation.SPIKE_SIZE * sy);
+            g2.setColor(Color.RED);
+            for (int i = spikes.first(viewBottom), n = spikes.end(viewTop - Simulation.SPIKE_SIZE); i < n; i++) {
+                int dx = (int) Math.floor(spikes.x(i) * sx), dy = (int) Math.floor((spikes.y(i) - camY) * sy);
+                g2.fillPolygon(new int[]{dx, dx + dw/2, dx + dw}, new int[]{dy + dh, dy, dy + dh}, 3);
             }
         }
 
-        // Kot
-        BufferedImage cat = catFrames[catFrameId];
-        int drawX = (int)px - 64;
-        int drawY = (int)py - 96;
-        if (cat != null) {
-            if (vx >= 0) g2.drawImage(cat, drawX, drawY, 128, 128, null);
-            else         g2.drawImage(cat, drawX+128, drawY, -128, 128, null);
+        // Kot (odbita klatka z atlasu zamiast rysowania z ujemną szerokością)
+        int catId = catIds[(int) (frame % catIds.length)][sim.vx() < 0 ? 1 : 0];
+        int dx = (int) Math.floor(((int) px - 64) * sx);
+        int dy = (int) Math.floor(((int) py - 96 - camY) * sy);
+        if (catId >= 0) {
+            atlas.draw(g2, catId, dx, dy);
         } else {
             g2.setColor(Color.BLACK);
-            g2.fillRect(drawX, drawY, 80, 96);
+            g2.fillRect(dx, dy, (int) (80 * sx), (int) (96 * sy));
         }
+    }
 
-        // --- UI / OVERLAY ---
-        
-        
-        g2.setTransform(systemTransform); 
-        
-        if (paused) {
-            drawOverlayText(g2, w, h, "PAUZA");
-        } else if (gameOver) {
-            drawOverlayText(g2, w, h, "KONIEC GRY");
-        }
+    private void paintLoading(Graphics2D g2, int w, int h) {
+        g2.setColor(getBackground());
+        g2.fillRect(0, 0, w, h);
+        int bw = Math.min(400, w / 2), bh = 12, bx = (w - bw) / 2, by = h / 2;
+        g2.setColor(Color.GRAY);
+        g2.drawRect(bx, by, bw, bh);
+        g2.setColor(Assets.PLATFORM_COLOR);
+        g2.fillRect(bx + 1, by + 1, (bw - 1) * loadDone.get() / Math.max(1, loadTotal), bh - 1);
+        g2.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 16));
+        g2.drawString("Wczytywanie...", bx, by - 8);
+    }
 
-        g2.dispose();
+    private static double lerp(double a, double b, double t) {
+        return a + (b - a) * t;
+    }
+
+    /** Wynik gracza w lewym dolnym rogu jego widoku (wyścig). */
+    private static void drawPlayerLabel(Graphics2D g, int h, Player p) {
+        String text = "Gracz " + (p.index + 1) + ": " + p.sim.score() + " pkt, monety: " + p.sim.coinsCollected();
+        g.setFont(LABEL_FONT);
+        FontMetrics fm = g.getFontMetrics();
+        int bh = fm.getHeight() + 8;
+        g.setColor(LABEL_BOX);
+        g.fillRect(8, h - 8 - bh, fm.stringWidth(text) + 16, bh);
+        g.setColor(Color.WHITE);
+        g.drawString(text, 16, h - 8 - bh + 4 + fm.getAscent());
     }
 
     private void drawOverlayText(Graphics2D g2, int w, int h, String text) {
@@ -486,21 +633,32 @@ public class GamePanel extends JComponent implements ActionListener, KeyListener
 
     // --- Input ---
     @Override public void keyPressed(KeyEvent e) {
-        switch (e.getKeyCode()) {
-            case KeyEvent.VK_LEFT  -> left = true;
-            case KeyEvent.VK_RIGHT -> right = true;
-            case KeyEvent.VK_SPACE -> {
-                if (!jumpKeyDown) { jumpKeyDown = true; jumpQueued = true; }
-            }
-            case KeyEvent.VK_P     -> togglePause();
+        if (e.getKeyCode() == KeyEvent.VK_P) { togglePause(); return; }
+        if (e.getKeyCode() == KeyEvent.VK_F3) { toggleDebugOverlay(); return; }
+        for (Player p : players) {
+            int key = inputKey(e, p.index);
+            if (key >= 0) { p.input.press(key, eventNanos(e)); return; }
         }
     }
     @Override public void keyReleased(KeyEvent e) {
-        switch (e.getKeyCode()) {
-            case KeyEvent.VK_LEFT  -> left = false;
-            case KeyEvent.VK_RIGHT -> right = false;
-            case KeyEvent.VK_SPACE -> jumpKeyDown = false;
+        for (Player p : players) {
+            int key = inputKey(e, p.index);
+            if (key >= 0) { p.input.release(key, eventNanos(e)); return; }
         }
     }
+
+    /** Klawisz gracza {@code player} jako {@code InputQueue.KEY_*} (-1 = nie jego). */
+    private static int inputKey(KeyEvent e, int player) {
+        int[] keys = PLAYER_KEYS[player];
+        for (int k = 0; k < keys.length; k++) if (keys[k] == e.getKeyCode()) return k;
+        return -1;
+    }
+
+    /** Chwila zdarzenia w skali System.nanoTime (getWhen() to milisekundy zegara ściennego – liczy się też czekanie w kolejce EDT). */
+    private static long eventNanos(KeyEvent e) {
+        long now = System.nanoTime();
+        long waitedMs = System.currentTimeMillis() - e.getWhen();
+        return waitedMs > 0 && waitedMs < 1000 ? now - waitedMs * 1_000_000L : now;
+    }
     @Override public void keyTyped(KeyEvent e) { /* not used */ }
 }
\ No newline at end of file
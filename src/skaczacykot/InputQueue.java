@@ -0,0 +1,106 @@
+package skaczacykot;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Wejście z klawiatury jako kolejka zdarzeń ze znacznikiem czasu ({@link System#nanoTime}),
+ * próbkowana raz na krok symulacji.
+ * <p>
+ * Producentów może być wielu (EDT, w przyszłości np. pad na innym wątku), konsument jest jeden –
+ * krok gry. Kolejka jest ograniczona i bez blokad (schemat Vyukova: numer sekwencyjny
+ * w każdym slocie, producenci rezerwują slot przez CAS na ogonie).
+ * <p>
+ * Krok bierze tylko zdarzenia sprzed nominalnego końca kroku, więc przy doganianiu kilku
+ * kroków w jednej klatce każde naciśnięcie trafia do kroku, w którym naprawdę nastąpiło.
+ * Kierunek jest aktywny w kroku, jeśli klawisz był wciśnięty w dowolnej chwili kroku – krótkie
+ * stuknięcie między krokami nie ginie. Skok to zbocze wciśnięcia (powtórzenia klawisza
+ * z systemu są pomijane).
+ */
+final class InputQueue {
+
+    static final int KEY_LEFT  = 0;
+    static final int KEY_RIGHT = 1;
+    static final int KEY_JUMP  = 2;
+    private static final int KEYS = 3;
+    private static final int[] BITS = {Simulation.IN_LEFT, Simulation.IN_RIGHT, Simulation.IN_JUMP};
+
+    private final long[] times;
+    private final int[] codes;            // klawisz << 1 | wciśnięty
+    private final AtomicLongArray seq;    // slot i jest wolny dla pozycji p, gdy seq == p; gotowy, gdy seq == p + 1
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Tylko konsument
+    private long head;
+    private final boolean[] held = new boolean[KEYS];
+
+    InputQueue(int capacity) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("capacity musi być potęgą 2");
+        times = new long[capacity];
+        codes = new int[capacity];
+        seq = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) seq.set(i, i);
+        mask = capacity - 1;
+    }
+
+    /** Zdarzenia odrzucone przy pełnej kolejce. */
+    long dropped() { return dropped.get(); }
+
+    // --- Producenci ---
+    void press(int key, long nanos)   { offer(key << 1 | 1, nanos); }
+    void release(int key, long nanos) { offer(key << 1, nanos); }
+
+    private void offer(int code, long nanos) {
+        long t;
+        int i;
+        while (true) {
+            t = tail.get();
+            i = (int) t & mask;
+            long s = seq.get(i);
+            if (s == t) {
+                if (tail.compareAndSet(t, t + 1)) break;
+            } else if (s < t) {
+                dropped.incrementAndGet();   // pełna – konsument jeszcze nie zwolnił slotu
+                return;
+            }
+        }
+        times[i] = nanos;
+        codes[i] = code;
+        seq.set(i, t + 1);   // publikacja (volatile)
+    }
+
+    // --- Konsument ---
+    /**
+     * Zdarzenia do {@code until} (nominalny koniec kroku) złożone w ramkę wejścia {@code IN_*}.
+     * Opóźnienie od zdarzenia do kroku ({@code now} - znacznik) trafia do {@code latency}.
+     */
+    int sample(long until, long now, FrameStats latency) {
+        int input = 0;
+        for (int k = 0; k < KEYS; k++) if (held[k] && k != KEY_JUMP) input |= BITS[k];
+        while (true) {
+            int i = (int) head & mask;
+            if (seq.get(i) != head + 1 || times[i] - until > 0) break;
+            int key = codes[i] >> 1;
+            boolean down = (codes[i] & 1) != 0;
+            latency.record(Math.max(0, now - times[i]));
+            seq.lazySet(i, head + mask + 1);   // slot wolny dla producentów (następne okrążenie)
+            head++;
+
+            if (down && !held[key]) input |= BITS[key];   // wciśnięcie w tym kroku (także skok)
+            held[key] = down;
+        }
+        return input;
+    }
+
+    /** Zapomina wciśnięte klawisze i zdarzenia w kolejce (np. restart gry). Tylko konsument. */
+    void clear() {
+        for (int i = (int) head & mask; seq.get(i) == head + 1; i = (int) head & mask) {
+            seq.lazySet(i, head + mask + 1);
+            head++;
+        }
+        Arrays.fill(held, false);
+    }
+}
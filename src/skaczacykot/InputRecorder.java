@@ -0,0 +1,82 @@
+package skaczacykot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Zapis wejścia gracza krok po kroku w zwartym formacie binarnym (patrz {@link Replay}).
+ * <p>
+ * Wejście zmienia się rzadko, więc zapisujemy serie: jedna liczba varint
+ * {@code (długość << 3) | bity wejścia} na każdą zmianę – zwykle 1–2 bajty na serię.
+ */
+final class InputRecorder {
+
+    private byte[] buf = new byte[4096];
+    private int len;
+
+    private long seed;
+    private int current = -1;   // wejście bieżącej serii (-1 = brak)
+    private int run;            // długość bieżącej serii
+
+    void reset(long seed) {
+        this.seed = seed;
+        len = 0;
+        current = -1;
+        run = 0;
+    }
+
+    /** Wejście kolejnego kroku symulacji (bity {@code Simulation.IN_*}). */
+    void record(int input) {
+        if (input == current && run < Replay.MAX_RUN) {
+            run++;
+            return;
+        }
+        flushRun();
+        current = input;
+        run = 1;
+    }
+
+    private void flushRun() {
+        if (run > 0) putVarint(((long) run << Replay.INPUT_BITS) | current);
+        run = 0;
+    }
+
+    private void putVarint(long v) {
+        if (len + 10 > buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+        while ((v & ~0x7FL) != 0) {
+            buf[len++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[len++] = (byte) v;
+    }
+
+    /**
+     * Zamyka zapis i zwraca gotowy plik powtórki (nagłówek, serie, stopka z wynikiem
+     * i sumą kontrolną stanu końcowego {@code sim}). Nagranie można potem zapisać w tle.
+     */
+    byte[] finish(Simulation sim) {
+        flushRun();
+        ByteBuffer out = ByteBuffer.allocate(Replay.HEADER_SIZE + len + 1 + Replay.FOOTER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        out.put(Replay.MAGIC).put(Replay.VERSION).putLong(seed);
+        out.put(buf, 0, len).put((byte) 0);   // varint 0 = koniec serii
+        out.putLong(sim.ticks()).putInt(sim.score()).putInt(sim.coinsCollected()).putLong(sim.checksum());
+        return out.array();
+    }
+
+    /** Zapis pliku przez kanał NIO. */
+    static void write(Path file, byte[] data) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bb = ByteBuffer.wrap(data);
+            while (bb.hasRemaining()) ch.write(bb);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package skaczacykot;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Własne zdarzenia JFR gry – do nagrania sesji i analizy przycięć, np.:
+ * {@code java -XX:StartFlightRecording=filename=gra.jfr,settings=profile -jar SkaczacyKot.jar}
+ * i potem {@code jfr print --events skaczacykot.GameTick gra.jfr} albo JDK Mission Control.
+ * <p>
+ * Obiekty zdarzeń tworzymy tylko, gdy nagrywanie danego typu jest włączone ({@code enabled()}).
+ */
+final class JfrEvents {
+    private JfrEvents() {}
+
+    @Name("skaczacykot.GameTick")
+    @Label("Krok symulacji")
+    @Category("Skaczący Kot")
+    static final class GameTick extends Event {
+        private static final EventType TYPE = EventType.getEventType(GameTick.class);
+        static boolean enabled() { return TYPE.isEnabled(); }
+
+        @Label("Gracz") @Description("0 = gracz 1; w wyścigu każdy gracz ma własne kroki") int player;
+        @Label("Krok") long tick;
+        @Label("Wejście") int input;
+        @Label("Zdarzenia") @Description("Bity Simulation.EV_*") int events;
+        @Label("Platformy") int platforms;
+    }
+
+    @Name("skaczacykot.RenderFrame")
+    @Label("Klatka")
+    @Category("Skaczący Kot")
+    static final class RenderFrame extends Event {
+        private static final EventType TYPE = EventType.getEventType(RenderFrame.class);
+        static boolean enabled() { return TYPE.isEnabled(); }
+
+        @Label("Szerokość") int width;
+        @Label("Wysokość") int height;
+        @Label("Skala renderowania") @Description("Wewnętrzna rozdzielczość świata względem pikseli urządzenia") double scale;
+        @Label("Alpha") @Description("Ułamek kroku użyty do interpolacji") double alpha;
+        @Label("Tryb aktywny") boolean active;
+    }
+
+    @Name("skaczacykot.SfxPlay")
+    @Label("Efekt dźwiękowy")
+    @Category("Skaczący Kot")
+    static final class SfxPlay extends Event {
+        private static final EventType TYPE = EventType.getEventType(SfxPlay.class);
+        static boolean enabled() { return TYPE.isEnabled(); }
+
+        @Label("Dźwięk") String sound;
+    }
+}
@@ -0,0 +1,181 @@
+package skaczacykot;
+
+import java.util.Random;
+
+import static skaczacykot.Simulation.*;
+
+/**
+ * Generowanie świata (platforma, czasem moneta i kolec w każdym rzędzie).
+ * Wydzielone z {@link Simulation}, żeby te same reguły mogły sprawdzać narzędzia
+ * (np. {@link LevelValidator}) bez uruchamiania całej gry.
+ * <p>
+ * Świat jest dzielony na chunki po {@link #CHUNK_ROWS} rzędów. Zawartość chunka zależy tylko
+ * od pary (ziarno, numer chunka), więc dowolną wysokość można odtworzyć bez generowania
+ * wszystkiego poniżej, a chunki można liczyć z wyprzedzeniem na innym wątku
+ * ({@link ChunkPrefetcher}). Ciągłość na granicy daje kotwica wejścia chunka
+ * ({@link #entryAnchor}): rzędy chunka są coraz mocniej przyciągane do kotwicy następnego,
+ * a pierwszy rząd następnego od niej startuje.
+ */
+final class LevelGenerator {
+    private LevelGenerator() {}
+
+    static final int CHUNK_ROWS = 8;   // 2400 jednostek świata – ok. 2 ekrany
+
+    /** Odbiorca wygenerowanych obiektów. */
+    interface Sink {
+        void platform(int x, int y, int w, int h);
+        void coin(int x, int y);
+        void spike(int x, int y);
+    }
+
+    /** Źródło chunków dla {@link Simulation} (na miejscu albo z kolejki wątku w tle). */
+    interface Source {
+        Chunk chunk(long seed, int index);
+    }
+
+    /** Generowanie na miejscu, w wątku wołającym. */
+    static final Source INLINE = LevelGenerator::chunk;
+
+    /** Gotowy chunk: po jednej platformie na rząd, opcjonalnie moneta i kolec (rzędy od dołu). */
+    static final class Chunk implements Sink {
+        private static final int NONE = Integer.MIN_VALUE;
+
+        final long seed;
+        final int index;
+        private final int[] platX = new int[CHUNK_ROWS], platY = new int[CHUNK_ROWS], platW = new int[CHUNK_ROWS];
+        private final int[] coinX = new int[CHUNK_ROWS], coinY = new int[CHUNK_ROWS];
+        private final int[] spikeX = new int[CHUNK_ROWS], spikeY = new int[CHUNK_ROWS];
+        private int row = -1;
+
+        Chunk(long seed, int index) {
+            this.seed = seed;
+            this.index = index;
+        }
+
+        @Override public void platform(int x, int y, int w, int h) {
+            row++;
+            platX[row] = x; platY[row] = y; platW[row] = w;
+            coinX[row] = NONE;
+            spikeX[row] = NONE;
+        }
+        @Override public void coin(int x, int y)  { coinX[row] = x; coinY[row] = y; }
+        @Override public void spike(int x, int y) { spikeX[row] = x; spikeY[row] = y; }
+
+        int platformX(int r)  { return platX[r]; }
+        int platformW(int r)  { return platW[r]; }
+        boolean hasSpike(int r) { return spikeX[r] != NONE; }
+        int spikeX(int r)     { return spikeX[r]; }
+
+        /** Przekazuje rząd {@code r} (0 = najniższy w chunku) do odbiorcy. */
+        void emit(int r, Sink out) {
+            out.platform(platX[r], platY[r], platW[r], PLAT_H);
+            if (coinX[r] != NONE) out.coin(coinX[r], coinY[r]);
+            if (spikeX[r] != NONE) out.spike(spikeX[r], spikeY[r]);
+        }
+    }
+
+    /** Y rzędu o numerze {@code row} (0 = pierwszy nad ziemią startową). */
+    static int rowY(int row) {
+        return START_FLOOR_Y - (row + 1) * STEP_HEIGHT;
+    }
+
+    /** Numer rzędu leżącego na wysokości {@code y} (odwrotność {@link #rowY}). */
+    static int rowAt(int y) {
+        return (START_FLOOR_Y - y) / STEP_HEIGHT - 1;
+    }
+
+    /** Chunk {@code index} świata o ziarnie {@code seed}. */
+    static Chunk chunk(long seed, int index) {
+        return chunk(seed, index, SPIKE_PROB);
+    }
+
+    /** Jak {@link #chunk(long, int)}, z inną szansą kolca (strojenie balansu, np. {@link BotHarness}). */
+    static Chunk chunk(long seed, int index, double spikeProb) {
+        Chunk c = new Chunk(seed, index);
+        chunk(seed, index, spikeProb, new Random(), c);
+        return c;
+    }
+
+    /**
+     * Generuje rzędy chunka {@code index} (od dołu) do {@code out}; {@code rnd} to tylko bufor
+     * wielokrotnego użytku – jest przestawiany ziarnem chunka.
+     */
+    static void chunk(long seed, int index, double spikeProb, Random rnd, Sink out) {
+        rnd.setSeed(mixSeed(seed + index * 0x9e3779b97f4a7c15L));
+        int exit = entryAnchor(seed, index + 1);
+        int anchor = entryAnchor(seed, index);
+        for (int i = 0; i < CHUNK_ROWS; i++) {
+            int centre = spawnRow(rnd, rowY(index * CHUNK_ROWS + i), anchor, spikeProb, out);
+            // Środek poprzedniej platformy, przyciągany do kotwicy następnego chunka – ostatni rząd
+            // w połowie drogi do niej (pierwszy rząd następnego chunka startuje dokładnie z kotwicy)
+            int left = CHUNK_ROWS - 1 - i;
+            anchor = centre + (exit - centre) / (left + 1);
+        }
+    }
+
+    /** Kotwica wejścia chunka (pierwszy chunk – środek ziemi startowej, gdzie stoi gracz). */
+    static int entryAnchor(long seed, int index) {
+        if (index == 0) return WORLD_W / 2;
+        int lo = 80 + MAX_PLAT_W / 2, hi = WORLD_W - 80 - MAX_PLAT_W / 2;
+        return lo + (int) Math.floorMod(mixSeed(~seed ^ index), (long) (hi - lo + 1));
+    }
+
+    static long mixSeed(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Rząd na wysokości {@code y}; platforma leży w zasięgu {@code MAX_HORIZ_GAP} od {@code anchorX}.
+     * @return środek wygenerowanej platformy (kotwica następnego rzędu)
+     */
+    static int spawnRow(Random rnd, int y, int anchorX, double spikeProb, Sink out) {
+        int w = rndBetween(rnd, MIN_PLAT_W, MAX_PLAT_W);
+
+        // --- Logika generowania X (ograniczenie poziomego zasięgu) ---
+        int targetXMin = anchorX - MAX_HORIZ_GAP;
+        int targetXMax = anchorX + MAX_HORIZ_GAP;
+        int worldXMin = 80;
+        int worldXMax = WORLD_W - 80 - w;
+
+        int minX = Math.max(targetXMin, worldXMin);
+        int maxX = Math.min(targetXMax, worldXMax);
+
+        if (minX > maxX) {
+            minX = worldXMin;
+            maxX = worldXMax;
+        }
+
+        int x = rndBetween(rnd, minX, maxX);
+
+        // ------------------------------------------------------------------------
+
+        out.platform(x, y, w, PLAT_H);
+
+        // Czasem moneta na platformie
+        if (rnd.nextDouble() < COIN_PROB) {
+            int cx = x + rndBetween(rnd, 24, Math.max(24, w - 24 - 32));
+            int cy = y - 40; // nad platformą
+            out.coin(cx, cy);
+        }
+
+        // --- Generowanie kolców z użyciem SPIKE_PROB ---
+        if (w >= 128) {
+            if (y == START_FLOOR_Y) {
+                // Kolce na ziemi startowej
+                out.spike(WORLD_W/2 - 32, START_FLOOR_Y - 48);
+            } else if (rnd.nextDouble() < spikeProb) { // Wykorzystanie ZWIĘKSZONEJ szansy (domyślnie SPIKE_PROB)
+                int spX = x + rndBetween(rnd, 32, w - 64 - 32);
+                int spY = y - 48;
+                out.spike(spX, spY);
+            }
+        }
+        // ----------------------------------------------------
+        return x + w / 2;
+    }
+
+    static int rndBetween(Random rnd, int a, int b) {
+        return a + rnd.nextInt(Math.max(1, b - a + 1));
+    }
+}
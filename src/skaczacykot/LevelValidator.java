@@ -0,0 +1,232 @@
+package skaczacykot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static skaczacykot.Simulation.*;
+
+/**
+ * Równoległy walidator generatora poziomów (Monte-Carlo): generuje bardzo wiele poziomów
+ * z kolejnych ziaren i dla każdej pary sąsiednich platform sprawdza, czy da się przeskoczyć
+ * z dolnej na górną przy prawdziwych stałych GRAVITY / JUMP_VY / MOVE_MAX.
+ * <p>
+ * Model ruchu jest optymistyczny (natychmiastowa zmiana prędkości poziomej, zawijanie
+ * ekranu dozwolone), więc zgłoszona "niemożliwa" przerwa jest naprawdę nie do przejścia.
+ * Gracz nie może przeniknąć platformy od spodu – w czasie, gdy jego prostokąt
+ * przecina się w pionie z górną platformą, musi być obok niej.
+ * <p>
+ * Poziomy są składane z tych samych chunków co w grze ({@link LevelGenerator#chunk}),
+ * więc sprawdzane są też przejścia przez granice chunków.
+ * <p>
+ * Uruchomienie: {@code java -cp SkaczacyKot.jar skaczacykot.LevelValidator [poziomy] [rzędy]}
+ */
+final class LevelValidator {
+
+    private static final int LEAF_LEVELS = 2048;
+    private static final int MAX_EXAMPLES = 8;
+    private static final int WRAP = WORLD_W + 128;       // okres zawijania (-64 .. WORLD_W + 64)
+    private static final int HALF_W = PLAYER_HALF_W;
+
+    // Przebieg pionowy skoku o STEP_HEIGHT (w krokach symulacji), liczony raz
+    private static final int T_ENTER;   // pierwszy krok, w którym prostokąt gracza nachodzi na górną platformę
+    private static final int T_ABOVE;   // pierwszy krok ze stopami na wysokości górnej platformy lub wyżej
+    private static final int T_LAND;    // krok lądowania (stopy przecinają górę platformy, lecąc w dół)
+    private static final double STEP_X = MOVE_MAX * DT;
+
+    static {
+        int enter = -1, above = -1, land = -1;
+        double vy = -JUMP_VY, feet = 0, top = -STEP_HEIGHT, bottom = top + PLAT_H;
+        for (int t = 1; t < 10 * TARGET_FPS && land < 0; t++) {
+            double prev = feet;
+            vy += GRAVITY * DT;
+            feet += vy * DT;
+            boolean overlap = feet - PLAYER_H < bottom && feet > top;
+            if (above < 0) {
+                if (feet <= top) above = t;
+                else if (overlap && enter < 0) enter = t;
+            } else if (prev <= top && feet > top) {
+                land = t;
+            }
+        }
+        T_ENTER = enter < 0 ? Integer.MAX_VALUE : enter;
+        T_ABOVE = above;
+        T_LAND = land;
+    }
+
+    /** Wynik sprawdzenia (sumowany między wątkami). */
+    static final class Stats {
+        long levels, pairs, impossibleGaps, unavoidableSpikes;
+        final List<String> examples = new ArrayList<>();
+
+        void add(Stats o) {
+            levels += o.levels; pairs += o.pairs;
+            impossibleGaps += o.impossibleGaps; unavoidableSpikes += o.unavoidableSpikes;
+            for (String e : o.examples) if (examples.size() < MAX_EXAMPLES) examples.add(e);
+        }
+
+        void example(String e) {
+            if (examples.size() < MAX_EXAMPLES) examples.add(e);
+        }
+    }
+
+    private static final class Task extends RecursiveTask<Stats> {
+        private final long baseSeed, from, to;
+        private final int rows;
+
+        Task(long baseSeed, long from, long to, int rows) {
+            this.baseSeed = baseSeed; this.from = from; this.to = to;
+            this.rows = rows;
+        }
+
+        @Override protected Stats compute() {
+            if (to - from > LEAF_LEVELS) {
+                long mid = (from + to) >>> 1;
+                Task left = new Task(baseSeed, from, mid, rows);
+                left.fork();
+                Stats s = new Task(baseSeed, mid, to, rows).compute();
+                s.add(left.join());
+                return s;
+            }
+            // Jeden generator na liść – przestawiany ziarnem kolejnych chunków
+            Stats s = new Stats();
+            Random gen = new Random();
+            for (long i = from; i < to; i++) {
+                validateLevel(LevelGenerator.mixSeed(baseSeed + i), rows, gen, s);
+            }
+            return s;
+        }
+    }
+
+    private static void validateLevel(long seed, int rows, Random gen, Stats s) {
+        s.levels++;
+
+        // Start – ziemia na całą szerokość, bez kolców (tak jak Simulation.reset)
+        int ax = 0, aw = WORLD_W;
+        boolean aSpike = false;
+        int aSpikeX = 0;
+        LevelGenerator.Chunk chunk = null;
+
+        for (int r = 0; r < rows; r++) {
+            int k = r / LevelGenerator.CHUNK_ROWS, i = r % LevelGenerator.CHUNK_ROWS;
+            if (i == 0) {
+                chunk = new LevelGenerator.Chunk(seed, k);
+                LevelGenerator.chunk(seed, k, SPIKE_PROB, gen, chunk);
+            }
+            int bx = chunk.platformX(i), bw = chunk.platformW(i), bSpikeX = chunk.spikeX(i);
+            boolean bSpike = chunk.hasSpike(i);
+
+            s.pairs++;
+            if (!reachable(ax, aw, aSpike, aSpikeX, bx, bw, bSpike, bSpikeX)) {
+                if (bSpike && reachable(ax, aw, aSpike, aSpikeX, bx, bw, false, 0)) {
+                    s.unavoidableSpikes++;
+                    s.example("ziarno " + seed + ", rząd " + r + ": kolec blokuje lądowanie");
+                } else {
+                    s.impossibleGaps++;
+                    s.example("ziarno " + seed + ", rząd " + r + ": przerwa nie do przeskoczenia ("
+                            + ax + "+" + aw + " -> " + bx + "+" + bw + ")");
+                }
+                break; // dalsza część poziomu i tak jest nieosiągalna
+            }
+
+            ax = bx; aw = bw; aSpike = bSpike; aSpikeX = bSpikeX;
+        }
+    }
+
+    /**
+     * Czy z platformy A (ax, aw) da się doskoczyć na platformę B (bx, bw) rząd wyżej.
+     * Sprawdzamy obie krawędzie B (gracz musi ją obejść w oknie T_ENTER..T_ABOVE)
+     * oraz przesunięcia o okres zawijania ekranu.
+     */
+    static boolean reachable(int ax, int aw, boolean aSpike, int aSpikeX,
+                             int bx, int bw, boolean bSpike, int bSpikeX) {
+        for (int shift = -WRAP; shift <= WRAP; shift += WRAP) {
+            double fLo = bx - HALF_W + shift, fHi = bx + bw + HALF_W + shift;
+            double sLo = bSpikeX - 24 + shift, sHi = bSpikeX + 88 + shift;
+            if (viaEdge(ax, aw, aSpike, aSpikeX, fLo, fHi, fLo, bSpike, sLo, sHi)) return true;
+            if (viaEdge(ax, aw, aSpike, aSpikeX, fLo, fHi, fHi, bSpike, sLo, sHi)) return true;
+        }
+        return false;
+    }
+
+    private static boolean viaEdge(int ax, int aw, boolean aSpike, int aSpikeX,
+                                   double fLo, double fHi, double edge,
+                                   boolean bSpike, double sLo, double sHi) {
+        // Od krawędzi do najbliższego bezpiecznego miejsca lądowania na B
+        double land;
+        boolean leftEdge = edge == fLo;
+        if (!bSpike || (leftEdge ? sLo > fLo : sHi < fHi)) {
+            land = 0;
+        } else if (leftEdge ? sHi < fHi : sLo > fLo) {
+            land = leftEdge ? sHi - fLo : fHi - sLo;
+        } else {
+            return false;
+        }
+
+        // Najwcześniejsze dojście do krawędzi z miejsc startu na A (bez strefy kolca)
+        double dLo = ax - HALF_W, dHi = ax + aw + HALF_W;
+        double arrive;
+        if (aSpike) {
+            double zLo = aSpikeX - 24, zHi = aSpikeX + 88;
+            arrive = Math.min(arrival(dLo, Math.min(dHi, zLo), fLo, fHi, edge),
+                              arrival(Math.max(dLo, zHi), dHi, fLo, fHi, edge));
+        } else {
+            arrive = arrival(dLo, dHi, fLo, fHi, edge);
+        }
+
+        // Nad B (a więc i do środka F) wolno wejść dopiero od T_ABOVE
+        double enter = Math.max(T_ABOVE, arrive);
+        return enter + land / STEP_X <= T_LAND;
+    }
+
+    /** Najwcześniejszy krok dojścia do krawędzi B ze startu w [lo, hi] (nieskończoność, gdy się nie da). */
+    private static double arrival(double lo, double hi, double fLo, double fHi, double edge) {
+        if (lo >= hi) return Double.POSITIVE_INFINITY;
+        return Math.min(arrivalFrom(clamp(edge, lo, hi), fLo, fHi, edge),
+               Math.min(arrivalFrom(clamp(fLo, lo, hi), fLo, fHi, edge),
+                        arrivalFrom(clamp(fHi, lo, hi), fLo, fHi, edge)));
+    }
+
+    private static double arrivalFrom(double d, double fLo, double fHi, double edge) {
+        double t = Math.abs(d - edge) / STEP_X;
+        boolean inside = d > fLo && d < fHi;
+        boolean sameSide = edge == fLo ? d <= fLo : d >= fHi;
+        if (!inside && sameSide) return t;
+        // Spod B trzeba wyjść (albo przejść pod nią na drugą stronę), zanim głowa dotknie jej spodu
+        return t <= T_ENTER ? t : Double.POSITIVE_INFINITY;
+    }
+
+    private static double clamp(double v, double lo, double hi) {
+        return v < lo ? lo : Math.min(v, hi);
+    }
+
+    /** Sprawdza {@code levels} poziomów po {@code rows} rzędów, zaczynając od ziarna bazowego. */
+    static Stats validate(long baseSeed, long levels, int rows) {
+        return ForkJoinPool.commonPool().invoke(new Task(baseSeed, 0, levels, rows));
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        long levels = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+
+        if (T_ABOVE < 0 || T_LAND < 0) {
+            System.out.println("Skok (" + JUMP_VY + " px/s) nie sięga STEP_HEIGHT=" + STEP_HEIGHT + " – każdy poziom jest niemożliwy");
+            System.exit(1);
+        }
+        System.out.printf("Skok o %d px: nad platformą po %d krokach, lądowanie po %d, zasięg poziomy ok. %.0f px%n",
+                STEP_HEIGHT, T_ABOVE, T_LAND, T_LAND * STEP_X);
+
+        long t0 = System.nanoTime();
+        Stats s = validate(42, levels, rows);
+        double secs = (System.nanoTime() - t0) / 1e9;
+
+        System.out.printf("Poziomy: %d (%d rzędów), pary platform: %d, %.2f s (%d wątków)%n",
+                s.levels, rows, s.pairs, secs, ForkJoinPool.getCommonPoolParallelism());
+        System.out.printf("Przerwy nie do przeskoczenia: %d (%.3f%% poziomów)%n", s.impossibleGaps, 100.0 * s.impossibleGaps / s.levels);
+        System.out.printf("Kolce blokujące lądowanie:    %d (%.3f%% poziomów)%n", s.unavoidableSpikes, 100.0 * s.unavoidableSpikes / s.levels);
+        for (String e : s.examples) System.out.println("  " + e);
+    }
+}
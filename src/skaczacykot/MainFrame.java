@@ -1,5 +1,9 @@
 package skaczacykot;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import javax.swing.*;
 
 /**
@@ -12,6 +16,11 @@ public class MainFrame extends javax.swing.JFrame {
 
     // --- Panel gry ---
     private GamePanel gamePanel;
+    private final JProgressBar loadBar = new JProgressBar();
+
+    // Historia gier i najlepsze wyniki (wczytywana i zapisywana w tle)
+    private final StatsStore stats = StatsStore.open(StatsStore.defaultFile());
+    private static final long STATS_WAIT_MS = 2000;   // dłużej okno końca gry nie czeka na historię
 
     public MainFrame() {
         initComponents();
@@ -21,30 +30,127 @@ public class MainFrame extends javax.swing.JFrame {
         setResizable(true);
 
         // Utwórz i dodaj GamePanel do CENTER
-        gamePanel = new GamePanel(this::updateHud, this::onGameOver);
+        // Postęp wczytywania zasobów – pasek znika, gdy wszystko gotowe
+        loadBar.setStringPainted(true);
+        loadBar.setString("Wczytywanie...");
+        topPanel.add(loadBar);
+
+        gamePanel = new GamePanel(this::updateHud, this::onGameOver, this::onLoadProgress);
+        gamePanel.setRaceOverListener(this::onRaceOver);
         getContentPane().add(gamePanel, java.awt.BorderLayout.CENTER);
 
         // Akcje przycisków
         btnPause.addActionListener(e -> gamePanel.togglePause());
         btnRestart.addActionListener(e -> gamePanel.restart());
 
+        // Przełącznik trybu rysowania (pasywny repaint() / aktywny BufferStrategy)
+        JToggleButton btnActive = new JToggleButton("Render aktywny");
+        btnActive.setFocusable(false);
+        btnActive.addActionListener(e -> gamePanel.setActiveRendering(btnActive.isSelected()));
+        topPanel.add(btnActive);
+
+        // Wewnętrzna rozdzielczość świata (auto = obniżana, gdy klatki nie mieszczą się w budżecie) i filtr powiększania
+        String[] scales = new String[RenderScale.LEVELS.length + 1];
+        scales[0] = "Rozdzielczość: auto";
+        for (int i = 0; i < RenderScale.LEVELS.length; i++) scales[i + 1] = String.format("%.0f%%", RenderScale.LEVELS[i] * 100);
+        JComboBox<String> cbScale = new JComboBox<>(scales);
+        cbScale.setFocusable(false);
+        cbScale.addActionListener(e -> {
+            int i = cbScale.getSelectedIndex();
+            gamePanel.setRenderScale(i == 0 ? RenderScale.AUTO : RenderScale.LEVELS[i - 1]);
+        });
+        topPanel.add(cbScale);
+
+        JComboBox<RenderScale.Filter> cbFilter = new JComboBox<>(RenderScale.Filter.values());
+        cbFilter.setSelectedItem(RenderScale.Filter.BILINEAR);
+        cbFilter.setFocusable(false);
+        cbFilter.addActionListener(e -> gamePanel.setRenderFilter((RenderScale.Filter) cbFilter.getSelectedItem()));
+        topPanel.add(cbFilter);
+
+        // Wyścig na podzielonym ekranie: ten sam świat, każdy gracz z własnymi klawiszami
+        String[] playerCounts = new String[GamePanel.MAX_PLAYERS];
+        for (int i = 0; i < playerCounts.length; i++) playerCounts[i] = i == 0 ? "1 gracz" : (i + 1) + " graczy";
+        JComboBox<String> cbPlayers = new JComboBox<>(playerCounts);
+        cbPlayers.setFocusable(false);
+        cbPlayers.setToolTipText("Wyścig – gracz 1: ←/→/SPACJA, gracz 2: A/D/W, gracz 3: J/L/I, gracz 4: num 4/6/8");
+        cbPlayers.addActionListener(e -> gamePanel.setPlayers(cbPlayers.getSelectedIndex() + 1));
+        topPanel.add(cbPlayers);
+
         setSize(1100, 700); // wygodny start
         SwingUtilities.invokeLater(() -> gamePanel.requestFocusInWindow());
     }
 
     /** Aktualizacja HUD (wołana przez GamePanel) */
     private void updateHud(int score, int coins) {
-        lblScore.setText("Punkty: " + score + " | Monety: " + coins + "   (←/→ ruch, SPACJA skok, P pauza)");
+        lblScore.setText("Punkty: " + score + " | Monety: " + coins + "   (←/→ ruch, SPACJA skok, P pauza, F3 diagnostyka)"
+                + String.format("   [%.0f Hz / %.0f FPS]", gamePanel.simHz(), gamePanel.renderFps()));
+    }
+
+    /** Postęp wczytywania zasobów (wołany przez GamePanel w EDT) */
+    private void onLoadProgress(int done, int total) {
+        loadBar.setMaximum(total);
+        loadBar.setValue(done);
+        if (done >= total) {
+            topPanel.remove(loadBar);
+            topPanel.revalidate();
+            topPanel.repaint();
+        }
+    }
+
+    /**
+     * Reakcja na koniec gry (wołana przez GamePanel) – okno pokazujemy, gdy gra trafi do historii,
+     * a gdy historia zawiedzie albo się spóźnia (najwyżej {@link #STATS_WAIT_MS}) – bez niej
+     */
+    private void onGameOver(StatsStore.Run run) {
+        stats.add(run)
+                .completeOnTimeout(null, STATS_WAIT_MS, TimeUnit.MILLISECONDS)
+                .whenComplete((summary, error) -> SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(
+                        this,
+                        gameOverText(run, summary),
+                        "Koniec gry",
+                        JOptionPane.INFORMATION_MESSAGE
+                )));
+    }
+
+    /** Koniec wyścigu (wołany przez GamePanel) – wyniki graczy; wyścigi nie trafiają do historii */
+    private void onRaceOver(List<StatsStore.Run> runs) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < runs.size(); i++) order.add(i);
+        order.sort(Comparator.comparingInt((Integer i) -> runs.get(i).score()).reversed());
+        StringBuilder sb = new StringBuilder("Koniec wyścigu!\n");
+        for (int k = 0; k < order.size(); k++) {
+            StatsStore.Run r = runs.get(order.get(k));
+            sb.append(String.format("%n%d. Gracz %d – %d pkt (monety %d, piętro %d, %s)",
+                    k + 1, order.get(k) + 1, r.score(), r.coins(), r.height(), time(r.ticks())));
+        }
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this, sb.toString(), "Wyścig", JOptionPane.INFORMATION_MESSAGE));
+    }
+
+    private static String gameOverText(StatsStore.Run run, StatsStore.Summary summary) {
+        StringBuilder sb = new StringBuilder(run.cause() == Simulation.DEATH_SPIKE ? "Przegrana – kolec!" : "Przegrana!");
+        sb.append("\nPunkty: ").append(run.score())
+          .append("\nMonety: ").append(run.coins())
+          .append("\nPiętro: ").append(run.height())
+          .append("\nCzas: ").append(time(run.ticks()));
+        if (summary == null) return sb.toString();   // historia niedostępna
+
+        if (summary.rank() == 1 && summary.games() > 1) sb.append("\n\nNowy rekord!");
+        else if (summary.rank() > 0) sb.append("\n\n").append(summary.rank()).append(". miejsce na liście najlepszych");
+        sb.append("\n\nNajlepsze wyniki:");
+        for (int i = 0; i < summary.top().size(); i++) {
+            StatsStore.Run r = summary.top().get(i);
+            sb.append(String.format("%n%2d. %d pkt (piętro %d, %s)", i + 1, r.score(), r.height(), time(r.ticks())));
+        }
+        sb.append("\n\nGier: ").append(summary.games()).append(", łącznie ").append(time(summary.ticks()))
+          .append(", najwyżej piętro ").append(summary.bestHeight());
+        return sb.toString();
     }
 
-    /** Reakcja na koniec gry (wołana przez GamePanel) */
-    private void onGameOver(int finalScore, int coins) {
-        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(
-                this,
-                "Przegrana!\nPunkty: " + finalScore + "\nMonety: " + coins,
-                "Koniec gry",
-                JOptionPane.INFORMATION_MESSAGE
-        ));
+    /** Kroki symulacji jako g:mm:ss / m:ss */
+    private static String time(long ticks) {
+        long s = ticks / Simulation.TARGET_FPS;
+        return s >= 3600 ? String.format("%d:%02d:%02d", s / 3600, s / 60 % 60, s % 60)
+                         : String.format("%d:%02d", s / 60, s % 60);
     }
     
     @SuppressWarnings("unchecked")
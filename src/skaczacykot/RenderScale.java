@@ -0,0 +1,171 @@
+package skaczacykot;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.VolatileImage;
+
+/**
+ * Wewnętrzna rozdzielczość rysowania świata.
+ * <p>
+ * Świat jest rysowany w pikselach urządzenia – na ekranach HiDPI (skalowanie systemu 150%,
+ * 200%) sprite'y są przeskalowane do rzeczywistych pikseli, a nie powiększane po fakcie.
+ * Przy skali poniżej 1 świat trafia do bufora poza ekranem (VolatileImage – w pamięci karty,
+ * gdy jest akceleracja) o rozmiarze {@code skala x piksele urządzenia}, który jest potem
+ * powiększany do panelu wybranym filtrem ({@link Filter}). Przy skali 1 bufora nie ma.
+ * <p>
+ * Skala jest stała albo automatyczna ({@link #AUTO}): po każdym oknie {@link #WINDOW} klatek
+ * średni czas klatki jest porównywany z budżetem – za wolno, to poziom niżej ({@link #LEVELS});
+ * kilka okien z dużym zapasem z rzędu, to poziom wyżej. Obniżenie, które nie skróciło klatki
+ * (np. powiększanie bufora bez akceleracji kosztuje więcej, niż oszczędza), jest cofane i niżej
+ * nie schodzimy, dopóki nie zmieni się filtr albo rozmiar. Poziomy są stałe, żeby przeskalowane
+ * sprite'y ({@link Assets#forScale}) i wypieczone pasy ({@link BandLayer}) nie powstawały co chwilę na nowo.
+ * Wszystko wołane pod lock panelu (wątek rysujący).
+ */
+final class RenderScale {
+
+    static final double AUTO = 0;
+    static final double[] LEVELS = {1.0, 0.875, 0.75, 0.625, 0.5};
+
+    private static final long BUDGET_NANOS = 12_000_000;          // ok. 3/4 klatki przy 60 FPS (reszta: krok, pokazanie)
+    private static final long HEADROOM_NANOS = BUDGET_NANOS / 2;   // poziom wyżej kosztuje do ok. 1,6x pikseli
+    private static final int WINDOW = 30;                           // klatek na jedną ocenę
+    private static final int RAISE_WINDOWS = 4;                     // ocen z zapasem z rzędu przed podniesieniem
+    private static final double MIN_GAIN = 0.9;                     // obniżenie zostaje, gdy klatka skróciła się o 10%+
+
+    /** Filtr powiększania bufora do panelu. */
+    enum Filter {
+        NEAREST("ostre piksele", RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR),
+        BILINEAR("dwuliniowy", RenderingHints.VALUE_INTERPOLATION_BILINEAR),
+        BICUBIC("dwusześcienny", RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+
+        final String label;
+        final Object hint;
+
+        Filter(String label, Object hint) {
+            this.label = label;
+            this.hint = hint;
+        }
+
+        @Override public String toString() { return label; }
+    }
+
+    // Ustawienia (z EDT)
+    private volatile double fixed = AUTO;
+    private volatile Filter filter = Filter.BILINEAR;
+
+    // Automat
+    private int level;
+    private long windowNanos;
+    private int windowFrames, calm;
+    private boolean settle;   // pierwsze okno po zmianie poziomu pomijamy (przeskalowanie sprite'ów)
+    private long beforeLower; // średni czas klatki przed ostatnim obniżeniem (0 = już oceniony)
+    private int floor = LEVELS.length - 1;   // najniższy poziom, który jeszcze pomaga
+    private Filter floorFilter;
+
+    private VolatileImage buffer;
+    private int bufferW, bufferH, deviceW, deviceH;   // ostatnia klatka (do nakładki F3)
+
+    /** @param scale 0..1 albo {@link #AUTO} */
+    void setScale(double scale) {
+        if (scale != AUTO && !(scale > 0 && scale <= 1)) throw new IllegalArgumentException("Skala poza (0, 1]: " + scale);
+        fixed = scale;
+    }
+
+    void setFilter(Filter filter) { this.filter = filter; }
+
+    boolean isAuto() { return fixed == AUTO; }
+    double scale()   { double f = fixed; return f != AUTO ? f : LEVELS[level]; }
+    Filter filter()  { return filter; }
+
+    /** Czas rysowania ostatniej klatki – podstawa skali automatycznej. */
+    void frame(long nanos) {
+        if (!isAuto()) return;
+        windowNanos += nanos;
+        if (++windowFrames < WINDOW) return;
+        long avg = windowNanos / windowFrames;
+        windowNanos = 0;
+        windowFrames = 0;
+        if (settle) {
+            settle = false;
+        } else if (beforeLower > 0 && avg > beforeLower * MIN_GAIN) {
+            // Obniżenie nie pomogło – wracamy i tu jest dno
+            beforeLower = 0;
+            floor = --level;
+            settle = true;
+        } else if (avg > BUDGET_NANOS && level < floor) {
+            beforeLower = avg;
+            level++;
+            settle = true;
+            calm = 0;
+        } else if (avg < HEADROOM_NANOS && level > 0) {
+            beforeLower = 0;
+            if (++calm >= RAISE_WINDOWS) {
+                level--;
+                settle = true;
+                calm = 0;
+            }
+        } else {
+            beforeLower = 0;
+            calm = 0;
+        }
+    }
+
+    /**
+     * Rysuje świat ({@code world} dostaje grafikę i rozmiar w pikselach, w których ma rysować)
+     * na {@code g} o rozmiarze {@code w x h} (piksele logiczne panelu).
+     */
+    void paint(Graphics2D g, int w, int h, ActiveCanvas.Painter world) {
+        // HiDPI: ile pikseli urządzenia przypada na piksel logiczny
+        AffineTransform tx = g.getTransform();
+        double dpiX = tx.getScaleX(), dpiY = tx.getScaleY();
+        int dw = Math.max(1, (int) Math.round(w * dpiX)), dh = Math.max(1, (int) Math.round(h * dpiY));
+        if (dw != deviceW || dh != deviceH || filter != floorFilter) {
+            floor = LEVELS.length - 1;   // inny koszt powiększania – dno wyznaczamy od nowa
+            floorFilter = filter;
+        }
+        deviceW = dw;
+        deviceH = dh;
+        double s = scale();
+
+        if (s >= 1) {
+            bufferW = deviceW;
+            bufferH = deviceH;
+            if (buffer != null) { buffer.flush(); buffer = null; }
+            if (dpiX == 1 && dpiY == 1) {
+                world.paint(g, w, h);
+                return;
+            }
+            Graphics2D d = (Graphics2D) g.create();
+            d.scale(1 / dpiX, 1 / dpiY);
+            world.paint(d, deviceW, deviceH);
+            d.dispose();
+            return;
+        }
+
+        bufferW = Math.max(1, (int) Math.round(deviceW * s));
+        bufferH = Math.max(1, (int) Math.round(deviceH * s));
+        GraphicsConfiguration gc = g.getDeviceConfiguration();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, filter.hint);
+        // Zawartość bufora w pamięci karty może zostać utracona – wtedy klatkę rysujemy ponownie
+        do {
+            if (buffer == null || buffer.getWidth() != bufferW || buffer.getHeight() != bufferH
+                    || buffer.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (buffer != null) buffer.flush();
+                buffer = gc.createCompatibleVolatileImage(bufferW, bufferH);
+            }
+            Graphics2D b = buffer.createGraphics();
+            try {
+                world.paint(b, bufferW, bufferH);
+            } finally {
+                b.dispose();
+            }
+            g.drawImage(buffer, 0, 0, w, h, null);
+        } while (buffer.contentsLost());
+    }
+
+    /** Opis do nakładki diagnostycznej. */
+    String describe() {
+        return String.format("rozdzielczość %.0f%%%s: %dx%d → %dx%d, filtr %s", scale() * 100, isAuto() ? " (auto)" : "",
+                bufferW, bufferH, deviceW, deviceH, scale() < 1 ? filter : "–");
+    }
+}
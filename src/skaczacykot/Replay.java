@@ -0,0 +1,138 @@
+package skaczacykot;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Odtwarzanie nagranej gry: wejście z pliku podawane krok po kroku do {@link Simulation}
+ * w tempie 1x lub z maksymalną prędkością, a na końcu porównanie wyniku i sumy kontrolnej.
+ * <p>
+ * Format pliku (little-endian):
+ * <pre>
+ *   "SKRP" | wersja:u8 | ziarno:i64
+ *   serie: varint (długość &lt;&lt; 3 | wejście) ... | varint 0
+ *   kroki:i64 | punkty:i32 | monety:i32 | suma kontrolna:i64
+ * </pre>
+ * Uruchomienie: {@code java -cp SkaczacyKot.jar skaczacykot.Replay plik.skr [--realtime]}
+ */
+final class Replay {
+
+    static final byte[] MAGIC = {'S', 'K', 'R', 'P'};
+    static final byte VERSION = 4;   // 2: świat z chunków (ziarno, numer); 3: kolizje ciągłe; 4: okna skoku – starsze nagrania się rozjeżdżają
+    static final int INPUT_BITS = 3;
+    static final int MAX_RUN = 1 << 24;
+    static final int HEADER_SIZE = 4 + 1 + 8;
+    static final int FOOTER_SIZE = 8 + 4 + 4 + 8;
+
+    private static final int READ_BUFFER = 8192;
+
+    /** Domyślne miejsce zapisu ostatniej gry. */
+    static Path lastRunFile() {
+        return Paths.get(System.getProperty("user.home"), ".skaczacykot", "last.skr");
+    }
+
+    /** Wynik odtworzenia. */
+    record Result(long ticks, int score, int coins, long checksum, boolean matches) {}
+
+    private Replay() {}
+
+    /**
+     * Odtwarza plik na nowej symulacji.
+     * @param realtime true = tempo gry (1x), false = tak szybko, jak się da
+     */
+    static Result play(Path file, boolean realtime) throws IOException, InterruptedException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer in = ByteBuffer.allocate(READ_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+            in.flip();
+
+            byte[] magic = new byte[MAGIC.length];
+            for (int i = 0; i < magic.length; i++) magic[i] = readByte(ch, in);
+            if (!Arrays.equals(magic, MAGIC)) throw new IOException("To nie jest plik powtórki: " + file);
+            int version = readByte(ch, in);
+            if (version > 0 && version < VERSION) throw new IOException("Powtórka ze starszej wersji gry (wersja " + version + ") – nie da się jej odtworzyć");
+            if (version != VERSION) throw new IOException("Nieobsługiwana wersja powtórki: " + version);
+            long seed = readLong(ch, in);
+
+            Simulation sim = new Simulation(seed);
+            long stepNanos = (long) (Simulation.DT * 1_000_000_000L);
+            long next = System.nanoTime();
+            for (long v; (v = readVarint(ch, in)) != 0; ) {
+                int input = (int) (v & ((1 << INPUT_BITS) - 1));
+                long run = v >>> INPUT_BITS;
+                for (long i = 0; i < run; i++) {
+                    sim.step(input);
+                    if (realtime) {
+                        next += stepNanos;
+                        long sleep = next - System.nanoTime();
+                        if (sleep > 0) Thread.sleep(sleep / 1_000_000L, (int) (sleep % 1_000_000L));
+                    }
+                }
+            }
+
+            long ticks = readLong(ch, in);
+            int score = readInt(ch, in);
+            int coins = readInt(ch, in);
+            long checksum = readLong(ch, in);
+            boolean ok = ticks == sim.ticks() && score == sim.score()
+                    && coins == sim.coinsCollected() && checksum == sim.checksum();
+            return new Result(sim.ticks(), sim.score(), sim.coinsCollected(), sim.checksum(), ok);
+        }
+    }
+
+    // --- Odczyt buforowany z kanału ---
+    private static void ensure(FileChannel ch, ByteBuffer in, int n) throws IOException {
+        if (in.remaining() >= n) return;
+        in.compact();
+        while (in.position() < n) {
+            if (ch.read(in) < 0) throw new EOFException("Uszkodzony plik powtórki");
+        }
+        in.flip();
+    }
+
+    private static byte readByte(FileChannel ch, ByteBuffer in) throws IOException {
+        ensure(ch, in, 1);
+        return in.get();
+    }
+
+    private static int readInt(FileChannel ch, ByteBuffer in) throws IOException {
+        ensure(ch, in, 4);
+        return in.getInt();
+    }
+
+    private static long readLong(FileChannel ch, ByteBuffer in) throws IOException {
+        ensure(ch, in, 8);
+        return in.getLong();
+    }
+
+    private static long readVarint(FileChannel ch, ByteBuffer in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte(ch, in);
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+        throw new IOException("Uszkodzony plik powtórki (varint)");
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        Path file = args.length > 0 ? Paths.get(args[0]) : lastRunFile();
+        boolean realtime = Arrays.asList(args).contains("--realtime");
+
+        long t0 = System.nanoTime();
+        Result r = play(file, realtime);
+        double secs = (System.nanoTime() - t0) / 1e9;
+
+        System.out.printf("%s: kroki=%d punkty=%d monety=%d suma=%016x (%.2f s, %.0f kroków/s)%n",
+                file, r.ticks(), r.score(), r.coins(), r.checksum(), secs, r.ticks() / Math.max(secs, 1e-9));
+        System.out.println(r.matches() ? "OK – powtórka zgodna z zapisem" : "BŁĄD – wynik różni się od zapisu");
+        if (!r.matches()) System.exit(1);
+    }
+}
@@ -0,0 +1,441 @@
+package skaczacykot;
+
+/**
+ * Silnik gry bez zależności od Swinga/AWT: fizyka gracza, generowanie platform i punktacja.
+ * <p>
+ * Jeden krok to {@link #step(int)} z ramką wejścia (bity {@code IN_*}) o stałym czasie {@link #DT};
+ * wynik kroku to bity zdarzeń {@code EV_*} (dźwięki, HUD, koniec gry obsługuje widok).
+ * Przebieg zależy wyłącznie od ziarna i kolejnych ramek wejścia, więc działa też bez ekranu
+ * ({@code java.awt.headless=true}) – dla botów, powtórek i testów balansu.
+ */
+final class Simulation {
+
+    // --- Config (świat i kamera) ---
+    static final int TARGET_FPS = 60;
+    static final double DT = 1.0 / TARGET_FPS;
+
+    static final int WORLD_W = 1920;   // szerokość świata (współrzędne rysowania)
+    static final int VIEW_H  = 1080;   // wysokość widoku (przestrzeń "kamery")
+    static final int START_FLOOR_Y = 520; // startowa "ziemia" pod graczem (wsp. świata)
+
+    // Ruch/sterowanie
+    static final double GRAVITY    = 2000;
+    static final double MOVE_ACCEL = 3000;
+    static final double MOVE_MAX   = 450;
+    static final double JUMP_VY    = 1200; // Max skok to ok. 360 px
+
+    // Prostokąt kolizji gracza (względem środka: 64 px w górę, 32 px w dół)
+    static final int PLAYER_W = 80, PLAYER_H = 96;
+    static final int PLAYER_HALF_W = PLAYER_W / 2;
+
+    // Scroll kamery (px/s) – lekko rośnie w czasie
+    static final double SCROLL_SPEED_BASE = 120;
+    static final double SCROLL_SPEED_GROW = 0.015; // przyrost prędkości na sekundę
+
+    // Generowanie platform
+    static final int MIN_PLAT_W = 220;
+    static final int MAX_PLAT_W = 420;
+    static final int PLAT_H     = 40;
+    static final int STEP_HEIGHT = 300; // Maksymalny ZASIĘG skoku w pionie to ok. 360px. 300px jest bezpieczne.
+    static final int MAX_HORIZ_GAP = 500; // Maksymalny bezpieczny dystans poziomy (max zasięg to ok. 540px)
+    static final double COIN_PROB = 0.45; // szansa monety na platformie
+
+    // ZWIĘKSZONA CZĘSTOTLIWOŚĆ KOLCÓW (20% szansy)
+    static final double SPIKE_PROB = 0.20;
+
+    // Obiekty świata
+    static final int COIN_SIZE  = 32;
+    static final int SPIKE_SIZE = 64;
+    static final int MAX_ENTITY_H = 80;   // najwyższy obiekt (ziemia startowa) – margines zapytań po y
+
+    // Kolizje ciągłe
+    private static final int MAX_SWEEP_PASSES = 3;      // zderzenia w jednym kroku (np. ściana, potem podłoga)
+    private static final double SWEEP_EPS = 1e-6;       // tolerancja klasyfikacji boku zderzenia
+    private static final double MAX_SUBSTEP_MOVE = 24;  // px drogi na punkt testu monet/kolców (< COIN_SIZE)
+
+    // --- Ramka wejścia ---
+    static final int IN_LEFT  = 1;
+    static final int IN_RIGHT = 2;
+    static final int IN_JUMP  = 4;   // wciśnięcie skoku w tym kroku (zbocze, nie przytrzymanie)
+
+    // Okna skoku (w krokach): wciśnięcie tuż przed lądowaniem i tuż po zejściu z krawędzi nadal skacze
+    static final int JUMP_BUFFER_TICKS = 6;   // 100 ms
+    static final int COYOTE_TICKS      = 6;   // 100 ms
+
+    // --- Zdarzenia kroku ---
+    static final int EV_JUMP      = 1;
+    static final int EV_COIN      = 2;
+    static final int EV_GAME_OVER = 4;
+
+    // --- Przyczyna końca gry ---
+    static final int DEATH_NONE  = 0;
+    static final int DEATH_SPIKE = 1;
+    static final int DEATH_FALL  = 2;   // wypadnięcie pod dół ekranu
+
+    // --- State ---
+    private long seed;
+    private final double scrollGrow;                // SCROLL_SPEED_GROW albo wartość strojona
+    private final LevelGenerator.Source world;   // chunki świata (na miejscu albo z wątku w tle)
+    private LevelGenerator.Chunk chunk;           // chunk, z którego idą kolejne rzędy
+
+    // Player (współrzędne świata)
+    private double px, py;
+    private double vx, vy;
+    private boolean onGround;
+    private double topY;      // najwyższe miejsce, na którym gracz stał w tej grze (najmniejsze py)
+    private int jumpBuffer;   // kroki, przez które wciśnięty skok jeszcze czeka na podłoże (0 = brak)
+    private int airTicks;     // kroki od zejścia z podłoża (COYOTE_TICKS + 1 = po skoku lub dawno)
+
+    // Kamera (przesuwa się w górę – zmniejsza camY)
+    private double camY;               // górny offset kamery względem świata (y świata - camY => y na ekranie)
+    private double totalTime;          // suma czasu (do przyrostu prędkości)
+    private long ticks;
+
+    // Obiekty świata (tablice prymitywów z indeksem pasów po STEP_HEIGHT – patrz EntityRing)
+    private final EntityRing platforms = new EntityRing(32, STEP_HEIGHT);
+    private final EntityRing spikes    = new EntityRing(16, STEP_HEIGHT);
+    private final EntityRing coins     = new EntityRing(16, STEP_HEIGHT);
+    private int nextSpawnY;  // najbliższa Y (świata) do wygenerowania kolejnej platformy (idąc w górę zmniejszamy y)
+
+    // Wynik
+    private int score;
+    private int coinsCollected;
+    private boolean gameOver;
+    private int deathCause;
+
+    Simulation(long seed) {
+        this(seed, LevelGenerator.INLINE);
+    }
+
+    /** @param world źródło chunków świata – np. {@link ChunkPrefetcher}, żeby nie generować w kroku */
+    Simulation(long seed, LevelGenerator.Source world) {
+        this(seed, world, SCROLL_SPEED_GROW);
+    }
+
+    /** @param scrollGrow przyrost prędkości przewijania (strojenie balansu – np. {@link BotHarness}) */
+    Simulation(long seed, LevelGenerator.Source world, double scrollGrow) {
+        this.world = world;
+        this.scrollGrow = scrollGrow;
+        reset(seed);
+    }
+
+    // --- World init ---
+    void reset(long seed) {
+        this.seed = seed;
+        chunk = null;
+
+        // Reset
+        platforms.clear();
+        spikes.clear();
+        coins.clear();
+
+        // Pozycja gracza – stoi na pierwszej platformie/ziemi
+        px = WORLD_W / 2.0;
+        py = START_FLOOR_Y - 32; // (środek gracza 32px nad górą platformy => stopy na platformie)
+        vx = 0; vy = 0; onGround = true;
+        topY = py;
+        jumpBuffer = 0;
+        airTicks = 0;
+
+        // Kamera na dole
+        camY = 0;
+        totalTime = 0;
+        ticks = 0;
+
+        // Płaska „ziemia” startowa
+        platforms.add(0, START_FLOOR_Y, WORLD_W, 80);
+
+        // Wygeneruj kilka pierwszych platform w górę
+        nextSpawnY = START_FLOOR_Y - STEP_HEIGHT;
+        while (nextSpawnY > -2*VIEW_H) { // generuj 2 ekrany w górę
+            spawnPlatformAt(nextSpawnY);
+            nextSpawnY -= STEP_HEIGHT;
+        }
+
+        // Wynik
+        score = 0;
+        coinsCollected = 0;
+        gameOver = false;
+        deathCause = DEATH_NONE;
+    }
+
+    /**
+     * Ustawia gracza w locie ({@code px}, {@code py} jak {@link #px()}/{@link #py()}, prędkość w px/s) –
+     * scenariusze kolizji w testach; poza tym stan gry się nie zmienia.
+     */
+    void place(double px, double py, double vx, double vy) {
+        this.px = px;
+        this.py = py;
+        this.vx = vx;
+        this.vy = vy;
+        onGround = false;
+        jumpBuffer = 0;
+        airTicks = COYOTE_TICKS + 1;
+    }
+
+    private void spawnPlatformAt(int y) {
+        int row = LevelGenerator.rowAt(y);
+        int index = row / LevelGenerator.CHUNK_ROWS;
+        if (chunk == null || chunk.index != index || chunk.seed != seed) chunk = world.chunk(seed, index);
+        chunk.emit(row - index * LevelGenerator.CHUNK_ROWS, sink);
+    }
+
+    // Wygenerowane obiekty trafiają prosto do magazynów świata
+    private final LevelGenerator.Sink sink = new LevelGenerator.Sink() {
+        @Override public void platform(int x, int y, int w, int h) { platforms.add(x, y, w, h); }
+        @Override public void coin(int x, int y)  { coins.add(x, y, COIN_SIZE, COIN_SIZE); }
+        @Override public void spike(int x, int y) { spikes.add(x, y, SPIKE_SIZE, SPIKE_SIZE); }
+    };
+
+    /**
+     * Jeden krok symulacji o długości {@link #DT}.
+     * @param input bity {@code IN_*} dla tego kroku
+     * @return bity {@code EV_*} zdarzeń, które zaszły w kroku
+     */
+    int step(int input) {
+        if (gameOver) return 0;
+        final double dt = DT;
+        int events = 0;
+        boolean left  = (input & IN_LEFT)  != 0;
+        boolean right = (input & IN_RIGHT) != 0;
+        if ((input & IN_JUMP) != 0) jumpBuffer = JUMP_BUFFER_TICKS;
+
+        ticks++;
+        totalTime += dt;
+
+        // Sterowanie poziome
+        double ax = 0;
+        if (left)  ax -= MOVE_ACCEL;
+        if (right) ax += MOVE_ACCEL;
+
+        vx += ax * dt;
+
+        // Tłumienie bez wejścia
+        if (!left && !right) {
+            double fr = 2200 * dt;
+            if (Math.abs(vx) <= fr) vx = 0; else vx -= Math.signum(vx) * fr;
+        }
+
+        // Ogranicz prędkość poziomą
+        if (vx >  MOVE_MAX) vx =  MOVE_MAX;
+        if (vx < -MOVE_MAX) vx = -MOVE_MAX;
+
+        // Skok (edge trigger): wciśnięcie czeka JUMP_BUFFER_TICKS na podłoże, a z krawędzi
+        // wolno jeszcze skoczyć przez COYOTE_TICKS po zejściu
+        if (jumpBuffer > 0 && (onGround || airTicks <= COYOTE_TICKS)) {
+            vy = -JUMP_VY;
+            onGround = false;
+            jumpBuffer = 0;
+            airTicks = COYOTE_TICKS + 1;
+            events |= EV_JUMP;
+        } else if (jumpBuffer > 0) {
+            jumpBuffer--;
+        }
+
+        // Grawitacja tylko w locie
+        if (!onGround) vy += GRAVITY * dt; else vy = 0;
+
+        // Ruch z kolizjami ciągłymi: prostokąt gracza (lewy górny róg) przesuwany do najwcześniejszego
+        // zderzenia w kroku (swept AABB), potem reszta ruchu wzdłuż ścianki – nie przelatuje przez platformy
+        double x = px - PLAYER_HALF_W, y = py - 64;
+        double mx = vx * dt, my = vy * dt;
+        onGround = false;
+        for (int pass = 0; pass < MAX_SWEEP_PASSES && (mx != 0 || my != 0); pass++) {
+            // kolizje tylko z pasami, przez które przechodzi gracz w tym kroku
+            int sweepTop    = (int) Math.floor(Math.min(y, y + my)) - MAX_ENTITY_H;
+            int sweepBottom = (int) Math.ceil(Math.max(y, y + my)) + PLAYER_H;
+            double toi = 1;
+            int hit = -1;
+            for (int i = platforms.first(sweepBottom), n = platforms.end(sweepTop); i < n; i++) {
+                double t = sweepToi(x, y, mx, my, platforms.x(i), platforms.y(i), platforms.w(i), platforms.h(i));
+                if (t < toi) { toi = t; hit = i; }
+            }
+            if (hit < 0) {
+                x += mx;
+                y += my;
+                break;
+            }
+            int bx = platforms.x(hit), by = platforms.y(hit), bw = platforms.w(hit), bh = platforms.h(hit);
+            x += mx * toi;
+            y += my * toi;
+            if (y > by - PLAYER_H + SWEEP_EPS && y < by + bh - SWEEP_EPS) {
+                // Z boku – dalej tylko w pionie
+                x = mx > 0 ? bx - PLAYER_W : bx + bw;
+                vx = 0;
+                mx = 0;
+                my *= 1 - toi;
+            } else if (my > 0) {
+                // Lądowanie z góry (stopy na górze platformy)
+                y = by - PLAYER_H;
+                vy = 0;
+                onGround = true;
+                my = 0;
+                mx *= 1 - toi;
+            } else {
+                // Odbicie od sufitu
+                y = by + bh;
+                vy = 50;
+                my = 0;
+                mx *= 1 - toi;
+            }
+        }
+
+        // Styk spoczynkowy: stopy dokładnie na górze platformy też są podłożem (bez migania onGround)
+        if (!onGround && vy >= 0) {
+            int feet = (int) Math.round(y) + PLAYER_H;
+            if (y + PLAYER_H == feet) {
+                for (int i = platforms.first(feet + 1), n = platforms.end(feet - MAX_ENTITY_H); i < n; i++) {
+                    if (platforms.y(i) == feet && x < platforms.x(i) + platforms.w(i) && platforms.x(i) < x + PLAYER_W) {
+                        onGround = true;
+                        vy = 0;
+                        break;
+                    }
+                }
+            }
+        }
+
+        airTicks = onGround ? 0 : Math.min(airTicks + 1, COYOTE_TICKS + 1);
+
+        double newPx = x + PLAYER_HALF_W;
+        double newPy = y + 64;
+
+        // Monety i kolce to testy nakładania – przy dużym przesunięciu sprawdzane w kilku punktach drogi,
+        // żeby szybki gracz nie przeskoczył nad nimi (przy zwykłych prędkościach jeden punkt, jak dawniej)
+        int sub = Math.max(1, (int) Math.ceil(Math.max(Math.abs(newPx - px), Math.abs(newPy - py)) / MAX_SUBSTEP_MOVE));
+
+        // Kolizje monet (w punktach 1/sub .. 1 drogi)
+        for (int k = 1; k <= sub; k++) {
+            double f = k / (double) sub;
+            int hitX = (int) (px + (newPx - px) * f) - 36, hitY = (int) (py + (newPy - py) * f) - 60;
+            for (int i = coins.first(hitY + 90), n = coins.end(hitY - COIN_SIZE); i < n; i++) {
+                if (!coins.alive(i)) continue;
+                if (overlaps(hitX, hitY, 72, 90, coins.x(i), coins.y(i), COIN_SIZE, COIN_SIZE)) {
+                    coins.kill(i);
+                    coinsCollected++;
+                    score += 20;
+                    events |= EV_COIN;
+                }
+            }
+        }
+
+        // Kolizja z kolcami (Game Over; w punktach 0 .. (sub-1)/sub drogi)
+        for (int k = 0; k < sub; k++) {
+            double f = k / (double) sub;
+            int dangerX = (int) (px + (newPx - px) * f) - 32, dangerY = (int) (py + (newPy - py) * f) - 56;
+            for (int i = spikes.first(dangerY + 88), n = spikes.end(dangerY - SPIKE_SIZE); i < n; i++) {
+                if (overlaps(dangerX, dangerY, 64, 88, spikes.x(i) + 8, spikes.y(i) + 16, 48, 32)) {
+                    gameOver = true;
+                    deathCause = DEATH_SPIKE;
+                    return events | EV_GAME_OVER;
+                }
+            }
+        }
+
+        // Wrap poziomy
+        if (newPx < -64)       newPx = WORLD_W + 64;
+        if (newPx > WORLD_W + 64) newPx = -64;
+
+        // Zatwierdź pozycję gracza
+        px = newPx; py = newPy;
+        if (onGround && py < topY) topY = py;
+
+        // Auto–scroll kamery w górę (zmniejszamy Y, bo góra to ujemne wartości)
+        double scrollSpeed = SCROLL_SPEED_BASE + scrollGrow * (totalTime * 100.0);
+        camY -= scrollSpeed * dt;
+
+        // Jeśli gracz spadnie poniżej dołu ekranu -> Game Over
+        double screenY = py - camY;
+        if (screenY > VIEW_H + 120) {
+            gameOver = true;
+            deathCause = DEATH_FALL;
+            return events | EV_GAME_OVER;
+        }
+
+        // Generowanie platform wyżej, jeśli zbliżamy się do góry widoku
+        while (nextSpawnY > camY - VIEW_H) {
+            spawnPlatformAt(nextSpawnY);
+            nextSpawnY -= STEP_HEIGHT;
+        }
+
+        // Sprzątanie obiektów daleko poniżej widoku
+        int killY = (int)camY + VIEW_H + 400;
+        platforms.dropBelow(killY);
+        coins.dropBelow(killY);
+        spikes.dropBelow(killY);
+
+        // Punkty rosną z czasem/przesuwem
+        score += 1;
+        return events;
+    }
+
+    /**
+     * Czas zderzenia (ułamek ruchu 0..1) prostokąta gracza z lewym górnym rogiem w (x, y), przesuwanego
+     * o (mx, my), z prostokątem (bx, by, bw, bh); {@code +∞}, gdy w tym ruchu nie zacznie go przecinać
+     * (sam styk krawędzi i start już wewnątrz nie są zderzeniem).
+     */
+    static double sweepToi(double x, double y, double mx, double my, int bx, int by, int bw, int bh) {
+        // Suma Minkowskiego: punkt (x, y) kontra prostokąt powiększony o wymiary gracza
+        double loX = bx - PLAYER_W, hiX = bx + bw, loY = by - PLAYER_H, hiY = by + bh;
+        double enterX, exitX, enterY, exitY;
+        if (mx == 0) {
+            if (x <= loX || x >= hiX) return Double.POSITIVE_INFINITY;
+            enterX = Double.NEGATIVE_INFINITY; exitX = Double.POSITIVE_INFINITY;
+        } else {
+            double a = (loX - x) / mx, b = (hiX - x) / mx;
+            enterX = Math.min(a, b); exitX = Math.max(a, b);
+        }
+        if (my == 0) {
+            if (y <= loY || y >= hiY) return Double.POSITIVE_INFINITY;
+            enterY = Double.NEGATIVE_INFINITY; exitY = Double.POSITIVE_INFINITY;
+        } else {
+            double a = (loY - y) / my, b = (hiY - y) / my;
+            enterY = Math.min(a, b); exitY = Math.max(a, b);
+        }
+        double enter = Math.max(enterX, enterY), exit = Math.min(exitX, exitY);
+        return enter < exit && enter >= 0 && enter < 1 ? enter : Double.POSITIVE_INFINITY;
+    }
+
+    /** Przecięcie prostokątów jak w Rectangle.intersects (sam styk krawędzi nie jest kolizją). */
+    static boolean overlaps(int ax, int ay, int aw, int ah, int bx, int by, int bw, int bh) {
+        return ax < bx + bw && bx < ax + aw && ay < by + bh && by < ay + ah;
+    }
+
+    // --- Odczyt stanu ---
+    long seed()          { return seed; }
+    long ticks()         { return ticks; }
+    double px()          { return px; }
+    double py()          { return py; }
+    double vx()          { return vx; }
+    double vy()          { return vy; }
+    boolean onGround()   { return onGround; }
+    double camY()        { return camY; }
+    int nextSpawnY()     { return nextSpawnY; }   // rzędy o y <= nextSpawnY jeszcze nie istnieją
+    int score()          { return score; }
+    int coinsCollected() { return coinsCollected; }
+    int height()         { return (int) ((START_FLOOR_Y - 32 - topY) / STEP_HEIGHT); }   // najwyższy rząd platform, na którym gracz stanął
+    boolean gameOver()   { return gameOver; }
+    int deathCause()     { return deathCause; }   // DEATH_*
+
+    /** Skrót stanu (wynik, pozycja, kamera) – do weryfikacji powtórek. */
+    long checksum() {
+        long h = 0xcbf29ce484222325L;
+        h = mix(h, ticks);
+        h = mix(h, score);
+        h = mix(h, coinsCollected);
+        h = mix(h, Double.doubleToLongBits(px));
+        h = mix(h, Double.doubleToLongBits(py));
+        h = mix(h, Double.doubleToLongBits(camY));
+        return h;
+    }
+
+    private static long mix(long h, long v) {
+        h ^= v;
+        h *= 0x100000001b3L;
+        return h ^ (h >>> 29);
+    }
+
+    // Obiekty świata – tylko do odczytu (rysowanie, narzędzia)
+    EntityRing platforms() { return platforms; }
+    EntityRing coins()     { return coins; }
+    EntityRing spikes()    { return spikes; }
+}
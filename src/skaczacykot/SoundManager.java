@@ -1,70 +1,395 @@
 package skaczacykot;
 
 import javax.sound.sampled.*;
-import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Dźwięk gry – programowy mikser na własnym wątku.
+ * <p>
+ * Efekty są dekodowane raz przy starcie ({@link #load}, równolegle) do wspólnego formatu miksera (44,1 kHz, 16 bit,
+ * stereo). Muzyka tła nie jest wczytywana w całości – mikser czyta ją z zasobu kawałkami
+ * do stałego bufora i na końcu pliku zaczyna od nowa (pętla bez przerwy).
+ * Wątek miksera jest jedynym właścicielem jednej {@link SourceDataLine}, strumienia muzyki
+ * oraz wszystkich głosów: co {@link #BLOCK_FRAMES} ramek miksuje tło i aktywne efekty
+ * i wpisuje blok do linii (zapis blokuje, więc wyznacza tempo).
+ * <p>
+ * Gra wysyła polecenia (graj, zatrzymaj, głośność) przez kolejkę SPSC bez blokad,
+ * więc {@code playSfx} nigdy nie czeka na dźwięk. Kolejka ma jednego producenta naraz –
+ * w grze wywołania są serializowane przez {@code GamePanel.lock}.
+ */
 final class SoundManager {
-    private Clip bgLoop;
-    private final List<Clip> sfx = new ArrayList<>();
+    private static final String DIR = "/resources/audio/";
 
-    void playBgLoop(String wavPath) {
-        stopBg();
-        bgLoop = loadClipFromResource("/resources/audio/" + wavPath);
-        if (bgLoop != null) {
-            bgLoop.loop(Clip.LOOP_CONTINUOUSLY);
-            bgLoop.start();
+    static final float SAMPLE_RATE = 44100f;
+    static final int BLOCK_FRAMES = 512;          // ok. 11,6 ms na blok
+    private static final int LINE_BLOCKS = 4;     // bufor linii = opóźnienie najwyżej ok. 46 ms
+    private static final int MAX_VOICES = 16;
+
+    /** Efekty (indeks = id w poleceniach) i ich limity głosów. */
+    private static final String[] NAMES  = {"jump.wav", "coin.wav", "hit.wav"};
+    private static final int[]    VOICES = {2,          4,          1};
+    /** Utwory tła (strumieniowane). */
+    private static final String[] MUSIC  = {"bg.wav"};
+
+    // Polecenia: op (8 bit) | id dźwięku (8 bit) | argument (32 bit)
+    private static final int OP_SFX = 1, OP_BG_PLAY = 2, OP_BG_PAUSE = 3, OP_BG_RESUME = 4, OP_BG_REWIND = 5,
+                             OP_STOP_ALL = 6, OP_VOLUME = 7;
+
+    private final short[][] pcm = new short[NAMES.length][];   // przeplecione L/R, tylko do odczytu po starcie miksera
+    private final URL[] music = new URL[MUSIC.length];
+    private final CommandQueue commands = new CommandQueue(256);
+    private volatile boolean enabled = true;                  // false = brak urządzenia, polecenia przepadają
+
+    // --- Stan wątku miksera ---
+    private final int[] voiceSound = new int[MAX_VOICES];     // -1 = wolny
+    private final int[] voicePos = new int[MAX_VOICES];       // pozycja w próbkach (L i R osobno)
+    private final long[] voiceStart = new long[MAX_VOICES];   // numer odtworzenia – najmniejszy = najstarszy
+    private long plays;
+    private BgStream bg;
+    private float volume = 1f;
+
+    SoundManager() {
+        for (int i = 0; i < MUSIC.length; i++) music[i] = SoundManager.class.getResource(DIR + MUSIC[i]);
+        Arrays.fill(voiceSound, -1);
+    }
+
+    /**
+     * Dekoduje efekty równolegle na {@code executor} i uruchamia mikser, gdy wszystkie są gotowe.
+     * Polecenia wysłane wcześniej czekają w kolejce.
+     */
+    CompletableFuture<Void> load(Executor executor) {
+        CompletableFuture<?>[] parts = new CompletableFuture<?>[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) {
+            int k = i;
+            parts[i] = CompletableFuture.runAsync(() -> pcm[k] = decode(DIR + NAMES[k]), executor);
         }
+        return CompletableFuture.allOf(parts).thenRun(this::startMixer);
     }
 
-    void stopBg() {
-        if (bgLoop != null) {
-            bgLoop.stop();
-            bgLoop.close();
-            bgLoop = null;
+    private void startMixer() {
+        SourceDataLine line = openLine();
+        if (line == null) {
+            enabled = false;   // brak urządzenia – gra bez dźwięku
+            return;
         }
+        Thread mixer = new Thread(() -> mixLoop(line), "audio-mixer");
+        mixer.setDaemon(true);
+        mixer.start();
     }
 
+    /** Muzyka w pętli od początku; ten sam utwór nie jest otwierany ponownie, tylko przewijany. */
+    void playBgLoop(String wavPath) { int id = musicId(wavPath); if (id >= 0) send(OP_BG_PLAY, id, 0); }
+    void pauseBg()                  { send(OP_BG_PAUSE, 0, 0); }
+    void resumeBg()                 { send(OP_BG_RESUME, 0, 0); }
+    void rewindBg()                 { send(OP_BG_REWIND, 0, 0); }
+    void stopAll()                  { send(OP_STOP_ALL, 0, 0); }
+
+    /** Gra wczytany wcześniej efekt; nieznane nazwy są pomijane. */
     void playSfx(String wavPath) {
-        Clip c = loadClipFromResource("/resources/audio/" + wavPath);
-        if (c != null) {
-            sfx.add(c);
-            c.addLineListener(ev -> {
-                if (ev.getType() == LineEvent.Type.STOP) {
-                    c.close();
-                    sfx.remove(c);
-                }
-            });
-            c.start();
+        int id = id(wavPath);
+        if (id < 0) return;
+        if (JfrEvents.SfxPlay.enabled()) {
+            JfrEvents.SfxPlay ev = new JfrEvents.SfxPlay();
+            ev.sound = wavPath;
+            ev.commit();
         }
+        send(OP_SFX, id, 0);
+    }
+
+    /** Głośność całości, 0..1. */
+    void setVolume(float v)         { send(OP_VOLUME, 0, Float.floatToIntBits(Math.max(0f, Math.min(1f, v)))); }
+
+    private static int id(String name) {
+        for (int i = 0; i < NAMES.length; i++) if (NAMES[i].equals(name)) return i;
+        return -1;
+    }
+
+    private int musicId(String name) {
+        for (int i = 0; i < MUSIC.length; i++) if (MUSIC[i].equals(name)) return music[i] != null ? i : -1;
+        return -1;
+    }
+
+    private void send(int op, int sound, int arg) {
+        if (!enabled) return;
+        // Pełna kolejka (mikser nie nadąża) – polecenie przepada, gra nie czeka
+        commands.offer((long) op << 40 | (long) sound << 32 | (arg & 0xFFFFFFFFL));
     }
 
-    void stopAll() {
-        stopBg();
-        for (Clip c : new ArrayList<>(sfx)) {
-            c.stop();
-            c.close();
+    // --- Wątek miksera ---
+    private SourceDataLine openLine() {
+        AudioFormat fmt = new AudioFormat(SAMPLE_RATE, 16, 2, true, false);
+        try {
+            SourceDataLine line = AudioSystem.getSourceDataLine(fmt);
+            line.open(fmt, BLOCK_FRAMES * 4 * LINE_BLOCKS);
+            return line;
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            return null;
         }
-        sfx.clear();
     }
 
-    private Clip loadClipFromResource(String fullPath) {
-        try (InputStream is = SoundManager.class.getResourceAsStream(fullPath)) {
-            if (is == null) return null;
-            try (AudioInputStream ais = AudioSystem.getAudioInputStream(new javax.sound.sampled.AudioInputStream(is, AudioSystem.getAudioInputStream(SoundManager.class.getResource(fullPath)).getFormat(), AudioSystem.getAudioInputStream(SoundManager.class.getResource(fullPath)).getFrameLength()))) {
-                Clip clip = AudioSystem.getClip();
-                // prostsza, bezpotrzebnie złożona linia powyżej bywa wrażliwa w niektórych JDK; użyj tego:
+    private void mixLoop(SourceDataLine line) {
+        int[] acc = new int[BLOCK_FRAMES * 2];
+        byte[] out = new byte[BLOCK_FRAMES * 4];
+        line.start();
+        while (true) {
+            for (long c; (c = commands.poll()) != CommandQueue.EMPTY; ) apply(c);
+            mix(acc);
+            int gain = Math.round(volume * 256);
+            for (int i = 0, j = 0; i < acc.length; i++) {
+                int s = (acc[i] * gain) >> 8;
+                s = s > Short.MAX_VALUE ? Short.MAX_VALUE : Math.max(s, Short.MIN_VALUE);
+                out[j++] = (byte) s;
+                out[j++] = (byte) (s >> 8);
             }
-        } catch (Exception ignore) {}
-        // Fallback – prostsze otwarcie (najczęściej działa)
+            line.write(out, 0, out.length);
+        }
+    }
+
+    private void apply(long c) {
+        int op = (int) (c >>> 40) & 0xFF, sound = (int) (c >>> 32) & 0xFF, arg = (int) c;
+        switch (op) {
+            case OP_SFX -> startVoice(sound);
+            case OP_BG_PLAY -> {
+                if (bg == null || bg.url != music[sound]) { closeBg(); bg = new BgStream(music[sound]); }
+                bgControl(true, true);
+            }
+            case OP_BG_PAUSE -> { if (bg != null) bg.playing = false; }
+            case OP_BG_RESUME -> bgControl(false, true);
+            case OP_BG_REWIND -> bgControl(true, bg != null && bg.playing);
+            case OP_STOP_ALL -> { if (bg != null) bg.playing = false; Arrays.fill(voiceSound, -1); }
+            case OP_VOLUME -> volume = Float.intBitsToFloat(arg);
+            default -> { }
+        }
+    }
+
+    private void bgControl(boolean rewind, boolean play) {
+        if (bg == null) return;
         try {
-            AudioInputStream ais = AudioSystem.getAudioInputStream(SoundManager.class.getResource(fullPath));
-            Clip clip = AudioSystem.getClip();
-            clip.open(ais);
-            return clip;
+            if (rewind || !bg.isOpen()) bg.rewind();
+            bg.playing = play;
+        } catch (IOException | UnsupportedAudioFileException e) {
+            closeBg();   // uszkodzony utwór – dalej bez muzyki
+        }
+    }
+
+    private void closeBg() {
+        if (bg != null) bg.close();
+        bg = null;
+    }
+
+    /** Wolny głos, a gdy limit dźwięku wyczerpany – najstarszy głos tego dźwięku (kradzież). */
+    private void startVoice(int sound) {
+        if (pcm[sound] == null) return;   // plik nie dał się wczytać
+        int used = 0, oldestSame = -1, free = -1, oldest = 0;
+        for (int v = 0; v < MAX_VOICES; v++) {
+            if (voiceSound[v] < 0) { if (free < 0) free = v; continue; }
+            if (voiceSound[v] == sound) {
+                used++;
+                if (oldestSame < 0 || voiceStart[v] < voiceStart[oldestSame]) oldestSame = v;
+            }
+            if (voiceSound[oldest] < 0 || voiceStart[v] < voiceStart[oldest]) oldest = v;
+        }
+        int v = used >= VOICES[sound] ? oldestSame : free >= 0 ? free : oldest;
+        voiceSound[v] = sound;
+        voicePos[v] = 0;
+        voiceStart[v] = ++plays;
+    }
+
+    private void mix(int[] acc) {
+        Arrays.fill(acc, 0);
+        if (bg != null && bg.playing) {
+            try {
+                bg.mixInto(acc);
+            } catch (IOException | UnsupportedAudioFileException e) {
+                closeBg();
+            }
+        }
+        for (int v = 0; v < MAX_VOICES; v++) {
+            if (voiceSound[v] < 0) continue;
+            short[] s = pcm[voiceSound[v]];
+            int pos = voicePos[v], n = Math.min(acc.length, s.length - pos);
+            for (int i = 0; i < n; i++) acc[i] += s[pos + i];
+            pos += n;
+            if (pos >= s.length) voiceSound[v] = -1;
+            voicePos[v] = pos;
+        }
+    }
+
+    // --- Kolejka poleceń ---
+    /** Jednokierunkowa kolejka SPSC bez blokad (pierścień long[], indeksy z publikacją lazySet). */
+    static final class CommandQueue {
+        static final long EMPTY = 0;   // polecenia zawsze mają op != 0
+
+        private final long[] buf;
+        private final int mask;
+        private final AtomicLong head = new AtomicLong();   // czyta konsument
+        private final AtomicLong tail = new AtomicLong();   // pisze producent
+        private long cachedHead;                            // tylko producent
+
+        CommandQueue(int capacity) {
+            if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("capacity musi być potęgą 2");
+            buf = new long[capacity];
+            mask = capacity - 1;
+        }
+
+        /** Producent; false, gdy kolejka pełna. */
+        boolean offer(long v) {
+            long t = tail.get();
+            if (t - cachedHead >= buf.length) {
+                cachedHead = head.get();
+                if (t - cachedHead >= buf.length) return false;
+            }
+            buf[(int) t & mask] = v;
+            tail.lazySet(t + 1);
+            return true;
+        }
+
+        /** Konsument; {@link #EMPTY}, gdy nic nie ma. */
+        long poll() {
+            long h = head.get();
+            if (h == tail.get()) return EMPTY;
+            long v = buf[(int) h & mask];
+            head.lazySet(h + 1);
+            return v;
+        }
+    }
+
+    // --- Muzyka ---
+    /**
+     * Utwór czytany z zasobu kawałkami po {@link #CHUNK_FRAMES} ramek do jednego bufora
+     * i przeliczany w locie na format miksera. Na końcu pliku strumień jest otwierany od nowa,
+     * a interpolacja łączy ostatnią ramkę z pierwszą – pętla jest ciągła. Tylko wątek miksera.
+     */
+    private static final class BgStream {
+        private static final int CHUNK_FRAMES = 4096;
+
+        final URL url;
+        boolean playing;
+
+        private AudioInputStream in;
+        private int channels;
+        private boolean bigEndian;
+        private double step;                          // ramki źródła na ramkę miksera
+        private final byte[] raw = new byte[CHUNK_FRAMES * 4];
+        private int rawFrames, rawPos;
+        private int curL, curR, nextL, nextR;         // sąsiednie ramki źródła do interpolacji
+        private double t;
+
+        BgStream(URL url) { this.url = url; }
+
+        boolean isOpen() { return in != null; }
+
+        /** Od początku utworu (otwiera strumień, niczego nie wczytuje z góry). */
+        void rewind() throws IOException, UnsupportedAudioFileException {
+            reopen();
+            pull(); curL = nextL; curR = nextR;
+            pull();
+            t = 0;
+        }
+
+        void mixInto(int[] acc) throws IOException, UnsupportedAudioFileException {
+            for (int i = 0; i < acc.length; i += 2) {
+                acc[i]     += curL + (int) ((nextL - curL) * t);
+                acc[i + 1] += curR + (int) ((nextR - curR) * t);
+                t += step;
+                while (t >= 1) {
+                    t -= 1;
+                    curL = nextL; curR = nextR;
+                    pull();
+                }
+            }
+        }
+
+        /** Następna ramka źródła do next*; na końcu pliku – od początku. */
+        private void pull() throws IOException, UnsupportedAudioFileException {
+            if (rawPos == rawFrames) fill();
+            int i = rawPos++ * channels * 2;
+            nextL = sample(raw, i, bigEndian);
+            nextR = channels == 2 ? sample(raw, i + 2, bigEndian) : nextL;
+        }
+
+        private void fill() throws IOException, UnsupportedAudioFileException {
+            int frameBytes = channels * 2;
+            for (boolean looped = false; ; looped = true) {
+                rawFrames = in.readNBytes(raw, 0, raw.length / frameBytes * frameBytes) / frameBytes;
+                rawPos = 0;
+                if (rawFrames > 0) return;
+                if (looped) throw new IOException("Pusty utwór: " + url);
+                reopen();
+            }
+        }
+
+        private void reopen() throws IOException, UnsupportedAudioFileException {
+            close();
+            AudioInputStream ais = openPcm16(url);
+            AudioFormat f = ais.getFormat();
+            if (f.getChannels() > 2) { ais.close(); throw new UnsupportedAudioFileException("Za dużo kanałów: " + url); }
+            in = ais;
+            channels = f.getChannels();
+            bigEndian = f.isBigEndian();
+            step = f.getSampleRate() / SAMPLE_RATE;
+            rawFrames = rawPos = 0;
+        }
+
+        void close() {
+            if (in == null) return;
+            try { in.close(); } catch (IOException ignore) { }
+            in = null;
+        }
+    }
+
+    // --- Dekodowanie ---
+    /** Strumień PCM 16 bit ze znakiem (konwersja, jeśli plik ma inne kodowanie). */
+    private static AudioInputStream openPcm16(URL url) throws IOException, UnsupportedAudioFileException {
+        AudioInputStream src = AudioSystem.getAudioInputStream(url);
+        AudioFormat f = src.getFormat();
+        if (f.getEncoding() == AudioFormat.Encoding.PCM_SIGNED && f.getSampleSizeInBits() == 16) return src;
+        return AudioSystem.getAudioInputStream(new AudioFormat(f.getSampleRate(), 16, f.getChannels(), true, false), src);
+    }
+
+    /** Cały plik jako przeplecione próbki stereo 16 bit w {@link #SAMPLE_RATE} (null, gdy się nie da). */
+    private static short[] decode(String fullPath) {
+        URL url = SoundManager.class.getResource(fullPath);
+        if (url == null) return null;
+        try (AudioInputStream ais = openPcm16(url)) {
+            AudioFormat f = ais.getFormat();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ais.transferTo(out);
+            return toMixFormat(out.toByteArray(), f.getChannels(), f.isBigEndian(), f.getSampleRate());
         } catch (Exception e) {
             return null;
         }
     }
+
+    /** Kanały -> stereo, częstotliwość -> SAMPLE_RATE (interpolacja liniowa). */
+    private static short[] toMixFormat(byte[] raw, int channels, boolean bigEndian, float rate) {
+        int frames = raw.length / (2 * channels);
+        if (frames == 0 || channels > 2) return null;
+        double step = rate / SAMPLE_RATE;
+        int outFrames = (int) ((frames - 1) / step) + 1;
+        short[] out = new short[outFrames * 2];
+        for (int i = 0; i < outFrames; i++) {
+            double p = i * step;
+            int f0 = (int) p, f1 = Math.min(f0 + 1, frames - 1);
+            double t = p - f0;
+            for (int ch = 0; ch < 2; ch++) {
+                int c = Math.min(ch, channels - 1);
+                int a = sample(raw, (f0 * channels + c) * 2, bigEndian);
+                int b = sample(raw, (f1 * channels + c) * 2, bigEndian);
+                out[i * 2 + ch] = (short) Math.round(a + (b - a) * t);
+            }
+        }
+        return out;
+    }
+
+    private static int sample(byte[] raw, int i, boolean bigEndian) {
+        return bigEndian ? (short) ((raw[i] << 8) | (raw[i + 1] & 0xFF))
+                         : (short) ((raw[i + 1] << 8) | (raw[i] & 0xFF));
+    }
 }
@@ -0,0 +1,453 @@
+package skaczacykot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Lokalna historia gier: dziennik rekordów (tylko dopisywanie) w pliku mapowanym do pamięci
+ * i indeks najlepszych wyników w pamięci.
+ * <p>
+ * Plikiem zajmuje się wyłącznie wątek w tle ("stats-writer"): najpierw wczytuje dziennik
+ * (start gry na niego nie czeka), potem dopisuje rekordy paczkami – wszystko, co zebrało
+ * się w kolejce, jedno zatwierdzenie licznika w nagłówku i jeden {@code force}.
+ * {@link #add} tylko wrzuca rekord do kolejki, a wynik (miejsce na liście, sumy) oddaje
+ * przyszłością, więc koniec gry nie czeka na dysk. Wątek trzyma blokadę pliku do zamknięcia;
+ * druga kopia gry jej nie dostanie i – jak przy nieczytelnym pliku – ma historię tylko w pamięci.
+ * <p>
+ * Gdy dziennik urośnie do {@link #COMPACT_AT} rekordów, wątek go kompaktuje: zostają
+ * najlepsze wyniki i ostatnie {@link #KEEP_RECENT} gier, reszta przechodzi do sum w nagłówku.
+ * Plik dziennika nie jest przy tym podmieniany ani skracany (zmapowanego pliku nie da się
+ * na Windows ani zastąpić, ani skrócić): nowa zawartość trafia najpierw do pliku {@code .tmp}
+ * (nagłówek na końcu – kopia jest kompletna, gdy ma poprawny nagłówek), potem jest przepisywana
+ * na początek dziennika. Przerwane przepisywanie kończy następne otwarcie. Dziennik nie rośnie
+ * więc ponad ok. {@link #COMPACT_AT} rekordów, a dalszy ogon pliku jest nieużywany.
+ * <p>
+ * Format pliku (little-endian):
+ * <pre>
+ *   "SKST" | wersja:u8 | 3 bajty zapasu | rekordy:i64
+ *   zsumowane gry:i64 | kroki:i64 | monety:i64 | najdłuższa gra:i64 | najwyższe piętro:i32 | zapas do 64 bajtów
+ *   rekordy po 40 bajtów: czas (ms epoki):i64 | ziarno:i64 | kroki:i64 | punkty:i32 | monety:i32 | piętro:i32 | przyczyna:u8 | 3 bajty zapasu
+ * </pre>
+ * Licznik rekordów w nagłówku zmienia się dopiero po zapisaniu paczki, więc przerwany zapis
+ * zostawia najwyżej nieużywany ogon pliku.
+ * <p>
+ * Uruchomienie: {@code java -cp SkaczacyKot.jar skaczacykot.StatsStore [plik]} – wypisuje podsumowanie.
+ */
+final class StatsStore {
+
+    static final byte[] MAGIC = {'S', 'K', 'S', 'T'};
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 40;
+    static final int TOP = 10;                      // długość listy najlepszych wyników
+
+    private static final int KEEP_RECENT = 10_000;   // ostatnie gry zostają w dzienniku po kompakcji
+    private static final long COMPACT_AT = 1 << 18;  // kompakcja od tylu rekordów (ok. 10 MB)
+    private static final long MIN_MAP = 64 * 1024;   // początkowy rozmiar mapowania (potem x2)
+    private static final long MAX_MAP = Integer.MAX_VALUE;   // mapowanie i przesunięcia rekordów to int
+    private static final long MAX_COMPACTED = HEADER_SIZE + (long) (KEEP_RECENT + TOP) * RECORD_SIZE;
+    private static final long CLOSE_WAIT_MS = 1000;  // zamknięcie przy wyjściu czeka najwyżej tyle na zapis
+
+    /** Jedna gra. {@code cause} to {@code Simulation.DEATH_*}, {@code height} to {@link Simulation#height()}. */
+    record Run(long time, long seed, long ticks, int score, int coins, int height, int cause) {}
+
+    /**
+     * Stan historii po zapisaniu gry: sumy po wszystkich grach, lista najlepszych
+     * i miejsce tej gry na liście (1.., 0 = poza listą).
+     */
+    record Summary(long games, long ticks, long coins, long longestTicks, int bestHeight, List<Run> top, int rank) {}
+
+    /** Sumy po grach (wszystkich albo tylko tych, które kompakcja usunęła z dziennika). */
+    private static final class Totals {
+        long games, ticks, coins, longest;
+        int height;
+
+        void add(Run r) {
+            games++;
+            ticks += r.ticks();
+            coins += r.coins();
+            longest = Math.max(longest, r.ticks());
+            height = Math.max(height, r.height());
+        }
+
+        Totals copy() {
+            Totals t = new Totals();
+            t.games = games; t.ticks = ticks; t.coins = coins; t.longest = longest; t.height = height;
+            return t;
+        }
+    }
+
+    private record Pending(Run run, CompletableFuture<Summary> done) {}
+    private static final Pending CLOSE = new Pending(null, null);
+
+    // Dzienniki otwarte w tym procesie: zamknięcie drugiego kanału do tego samego pliku
+    // zdjęłoby blokadę pierwszego (blokady POSIX należą do procesu), więc drugi nie otwiera pliku wcale
+    private static final Set<Path> OPEN = ConcurrentHashMap.newKeySet();
+
+    private final Path file;
+    private boolean registered;        // plik wpisany do OPEN
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean closed;
+
+    // Tylko wątek zapisu
+    private FileChannel ch;
+    private FileLock lock;             // dziennik należy do jednej kopii gry naraz
+    private MappedByteBuffer map;      // null = plik niedostępny (historia tylko w pamięci)
+    private long count;                // rekordy w dzienniku
+    private Totals folded = new Totals();   // gry usunięte z dziennika przez kompakcję
+    private Totals all = new Totals();
+    private final Run[] top = new Run[TOP];           // malejąco po punktach (przy remisie starsza wyżej)
+    private long[] topPos = new long[TOP];            // numer rekordu w dzienniku
+    private int topSize;
+
+    private StatsStore(Path file) {
+        this.file = file;
+        thread = new Thread(this::run, "stats-writer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+    }
+
+    /** Domyślne miejsce historii gier (obok powtórki ostatniej gry). */
+    static Path defaultFile() {
+        return Paths.get(System.getProperty("user.home"), ".skaczacykot", "stats.log");
+    }
+
+    /** Otwiera historię w tle i od razu wraca; przy wyjściu z programu zapisuje to, co czeka w kolejce. */
+    static StatsStore open(Path file) {
+        StatsStore s = new StatsStore(file);
+        s.thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(s::close, "stats-close"));
+        return s;
+    }
+
+    /** Dopisuje grę; przyszłość kończy się (w wątku zapisu) po zapisaniu rekordu. */
+    CompletableFuture<Summary> add(Run run) {
+        return enqueue(run);
+    }
+
+    /** Bieżące podsumowanie (po wczytaniu dziennika i zapisaniu gier, które już czekają). */
+    CompletableFuture<Summary> summary() {
+        return enqueue(null);
+    }
+
+    private CompletableFuture<Summary> enqueue(Run run) {
+        CompletableFuture<Summary> done = new CompletableFuture<>();
+        if (closed) done.completeExceptionally(new IllegalStateException("Historia gier zamknięta"));
+        else queue.add(new Pending(run, done));
+        return done;
+    }
+
+    /** Zapisuje gry z kolejki i zamyka plik (czeka najwyżej {@link #CLOSE_WAIT_MS}). */
+    void close() {
+        if (closed) return;
+        closed = true;
+        queue.add(CLOSE);
+        try {
+            thread.join(CLOSE_WAIT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Wątek zapisu ---
+    private void run() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            fail("Nie udało się wczytać historii gier " + file, e);
+        }
+        List<Pending> batch = new ArrayList<>();
+        try {
+            boolean stop = false;
+            while (!stop) {
+                batch.add(queue.take());
+                queue.drainTo(batch);
+                try {
+                    stop = write(batch);
+                } catch (RuntimeException e) {
+                    // Wątek nie może zginąć – czekający na wynik dostają wyjątek, dalej historia tylko w pamięci
+                    fail("Błąd zapisu historii gier", e);
+                    for (Pending p : batch) {
+                        if (p == CLOSE) stop = true;
+                        else p.done().completeExceptionally(e);
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException ignored) {
+            // koniec
+        }
+        try {
+            if (lock != null) lock.release();
+            if (ch != null) ch.close();
+            if (registered) OPEN.remove(file.toAbsolutePath().normalize());
+        } catch (IOException ignored) {
+            // i tak wychodzimy
+        }
+    }
+
+    /** Paczka gier: dopisanie, jedno zatwierdzenie, potem wyniki. Zwraca true, gdy trafiło się zamknięcie. */
+    private boolean write(List<Pending> batch) {
+        boolean stop = false;
+        for (Pending p : batch) {
+            if (p == CLOSE) stop = true;
+            else if (p.run() != null) append(p.run());
+        }
+        commit();
+        List<Run> snapshot = List.of(Arrays.copyOf(top, topSize));
+        for (Pending p : batch) {
+            if (p == CLOSE) continue;
+            int rank = 0;
+            for (int i = 0; i < topSize; i++) if (top[i] == p.run()) rank = i + 1;
+            p.done().complete(new Summary(all.games, all.ticks, all.coins, all.longest, all.height, snapshot, rank));
+        }
+        if (count >= COMPACT_AT && !stop) compact();
+        return stop;
+    }
+
+    private void append(Run r) {
+        all.add(r);
+        index(r, count);
+        if (map == null) {
+            count++;
+            return;
+        }
+        try {
+            long end = HEADER_SIZE + (count + 1) * RECORD_SIZE;
+            if (end > MAX_MAP) throw new IOException("dziennik przekroczyłby " + MAX_MAP + " bajtów");
+            if (end > map.capacity()) map(Math.min(MAX_MAP, Math.max(end, 2L * map.capacity())));
+            putRecord(map, offset(count), r);
+            count++;
+        } catch (IOException e) {
+            fail("Nie udało się zapisać historii gier", e);
+        }
+    }
+
+    private void commit() {
+        if (map == null) return;
+        map.putLong(8, count);
+        map.force();
+    }
+
+    /** Wstawia grę na listę najlepszych, jeśli się na nią mieści. */
+    private void index(Run r, long pos) {
+        int i = topSize;
+        while (i > 0 && top[i - 1].score() < r.score()) i--;
+        if (i >= TOP) return;
+        int n = Math.min(topSize, TOP - 1);
+        System.arraycopy(top, i, top, i + 1, n - i);
+        System.arraycopy(topPos, i, topPos, i + 1, n - i);
+        top[i] = r;
+        topPos[i] = pos;
+        topSize = n + 1;
+    }
+
+    // --- Plik ---
+    private void load() {
+        try {
+            Path dir = file.toAbsolutePath().getParent();
+            if (dir != null) Files.createDirectories(dir);
+            registered = OPEN.add(file.toAbsolutePath().normalize());
+            if (!registered) throw new IOException("plik otwarty już w tym procesie");
+            ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                lock = ch.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;   // ten sam plik pod inną ścieżką
+            }
+            // Druga kopia gry nadpisywałaby rekordy tej pierwszej – ta gra ma historię tylko w pamięci
+            if (lock == null) throw new IOException("plik używany przez inną kopię gry");
+            recover();
+            long size = ch.size();
+            if (size > MAX_MAP) throw new IOException("plik większy niż " + MAX_MAP + " bajtów");
+            if (size > 0 && !validHeader(size)) {
+                // Obcy albo uszkodzony plik – odkładamy kopię na bok zamiast nadpisywać; kopiujemy
+                // przez własny kanał, żeby nie zwalniać blokady (na Windows blokuje też odczyt innym)
+                Path bad = file.resolveSibling(file.getFileName() + ".bad");
+                try (FileChannel bc = FileChannel.open(bad, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                    for (long p = 0; p < size; ) p += ch.transferTo(p, size - p, bc);
+                }
+                ch.truncate(0);
+                System.err.println("Historia gier nieczytelna – przeniesiona do " + bad);
+                size = 0;
+            }
+            map(Math.max(size, MIN_MAP));
+            if (size == 0) {
+                putHeader(map, 0, folded);
+                commit();
+                return;
+            }
+
+            count = Math.min(map.getLong(8), (size - HEADER_SIZE) / RECORD_SIZE);   // ogon po przerwanym zapisie pomijamy
+            folded.games = map.getLong(16);
+            folded.ticks = map.getLong(24);
+            folded.coins = map.getLong(32);
+            folded.longest = map.getLong(40);
+            folded.height = map.getInt(48);
+            all = folded.copy();
+            for (long i = 0; i < count; i++) {
+                Run r = readRecord(map, offset(i));
+                all.add(r);
+                index(r, i);
+            }
+            if (count >= COMPACT_AT) compact();
+        } catch (IOException e) {
+            fail("Nie udało się otworzyć historii gier " + file, e);
+        }
+    }
+
+    private boolean validHeader(long size) throws IOException {
+        if (size < HEADER_SIZE) return false;
+        ByteBuffer h = ByteBuffer.allocate(MAGIC.length + 1);
+        while (h.hasRemaining()) if (ch.read(h, h.position()) < 0) return false;
+        return Arrays.equals(Arrays.copyOf(h.array(), MAGIC.length), MAGIC) && h.get(MAGIC.length) == VERSION;
+    }
+
+    private void map(long capacity) throws IOException {
+        map = ch.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Dalej bez pliku – gry liczą się w tej sesji, ale nie są zapisywane. */
+    private void fail(String what, Exception e) {
+        System.err.println(what + ": " + e);
+        map = null;
+    }
+
+    /**
+     * Przepisuje dziennik: najlepsze wyniki i ostatnie gry zostają, reszta trafia do sum
+     * w nagłówku. Nowa zawartość idzie najpierw do {@link #compactFile} (trwale), dopiero potem
+     * na początek dziennika, więc przerwana kompakcja zostawia stary dziennik albo kompletną kopię.
+     */
+    private void compact() {
+        if (map == null) return;
+        long keepFrom = Math.max(0, count - KEEP_RECENT);
+        long kept = count - keepFrom;
+        for (int t = 0; t < topSize; t++) if (topPos[t] < keepFrom) kept++;
+
+        Totals f = folded.copy();
+        long[] newPos = new long[TOP];
+        ByteBuffer out = ByteBuffer.allocate(Math.toIntExact(HEADER_SIZE + kept * RECORD_SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+        long n = 0;
+        for (long i = 0; i < count; i++) {
+            int t = -1;
+            for (int k = 0; k < topSize; k++) if (topPos[k] == i) t = k;
+            if (i < keepFrom && t < 0) {
+                f.add(readRecord(map, offset(i)));
+                continue;
+            }
+            if (t >= 0) newPos[t] = n;
+            out.put(offset(n), map, offset(i), RECORD_SIZE);
+            n++;
+        }
+        putHeader(out, n, f);
+
+        try {
+            Path tmp = compactFile();
+            try (FileChannel tc = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                // Rekordy, potem nagłówek – poprawny nagłówek kopii znaczy, że reszta już jest na dysku
+                writeFully(tc, out.duplicate().position(HEADER_SIZE), HEADER_SIZE);
+                tc.force(true);
+                writeFully(tc, out.duplicate().limit(HEADER_SIZE), 0);
+                tc.force(true);
+            }
+            map.put(0, out, 0, out.capacity());
+            map.force();
+            Files.delete(tmp);
+            count = n;
+            folded = f;
+            topPos = newPos;
+        } catch (IOException e) {
+            fail("Kompakcja historii gier nieudana", e);
+        }
+    }
+
+    /** Kopia dziennika po kompakcji, zanim trafi na jego początek. */
+    private Path compactFile() {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    /**
+     * Kończy kompakcję przerwaną w trakcie przepisywania (kompletna kopia w {@link #compactFile});
+     * kopię bez nagłówka (przerwany zapis kopii) odrzuca – dziennik jest wtedy nietknięty.
+     */
+    private void recover() throws IOException {
+        Path tmp = compactFile();
+        if (!Files.exists(tmp)) return;
+        try (FileChannel tc = FileChannel.open(tmp, StandardOpenOption.READ)) {
+            long size = tc.size();
+            if (size >= HEADER_SIZE && size <= MAX_COMPACTED) {
+                ByteBuffer img = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+                while (img.hasRemaining() && tc.read(img) >= 0) { }
+                boolean complete = !img.hasRemaining()
+                        && Arrays.equals(Arrays.copyOf(img.array(), MAGIC.length), MAGIC) && img.get(MAGIC.length) == VERSION
+                        && img.getLong(8) == (size - HEADER_SIZE) / RECORD_SIZE && (size - HEADER_SIZE) % RECORD_SIZE == 0;
+                if (complete) {
+                    writeFully(ch, img.flip(), 0);
+                    ch.force(true);
+                    System.err.println("Dokończono przerwaną kompakcję historii gier");
+                }
+            }
+        }
+        Files.delete(tmp);
+    }
+
+    private static void writeFully(FileChannel c, ByteBuffer b, long position) throws IOException {
+        while (b.hasRemaining()) position += c.write(b, position);
+    }
+
+    private static int offset(long record) {
+        return Math.toIntExact(HEADER_SIZE + record * RECORD_SIZE);
+    }
+
+    private static void putHeader(ByteBuffer b, long count, Totals folded) {
+        b.put(0, MAGIC).put(MAGIC.length, VERSION);
+        b.putLong(8, count);
+        b.putLong(16, folded.games).putLong(24, folded.ticks).putLong(32, folded.coins).putLong(40, folded.longest);
+        b.putInt(48, folded.height);
+    }
+
+    private static void putRecord(ByteBuffer b, int o, Run r) {
+        b.putLong(o, r.time()).putLong(o + 8, r.seed()).putLong(o + 16, r.ticks());
+        b.putInt(o + 24, r.score()).putInt(o + 28, r.coins()).putInt(o + 32, r.height());
+        b.put(o + 36, (byte) r.cause());
+    }
+
+    private static Run readRecord(ByteBuffer b, int o) {
+        return new Run(b.getLong(o), b.getLong(o + 8), b.getLong(o + 16),
+                b.getInt(o + 24), b.getInt(o + 28), b.getInt(o + 32), b.get(o + 36));
+    }
+
+    public static void main(String[] args) throws Exception {
+        StatsStore s = open(args.length > 0 ? Paths.get(args[0]) : defaultFile());
+        Summary sum = s.summary().get();
+        System.out.printf("Gier: %d, łącznie %.1f min, monety %d, najdłuższa gra %.1f s, najwyższe piętro %d%n",
+                sum.games(), sum.ticks() / 60.0 / Simulation.TARGET_FPS, sum.coins(),
+                sum.longestTicks() / (double) Simulation.TARGET_FPS, sum.bestHeight());
+        for (int i = 0; i < sum.top().size(); i++) {
+            Run r = sum.top().get(i);
+            System.out.printf("%3d. %7d pkt  monety %4d  piętro %4d  %.1f s  (ziarno %d)%n", i + 1, r.score(), r.coins(),
+                    r.height(), r.ticks() / (double) Simulation.TARGET_FPS, r.seed());
+        }
+        s.close();
+    }
+}
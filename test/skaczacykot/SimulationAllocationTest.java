@@ -0,0 +1,80 @@
+package skaczacykot;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * {@link Simulation#step} po rozgrzaniu nie alokuje – poza krokami, w których zaczyna się nowy
+ * chunk świata (obiekt {@link LevelGenerator.Chunk}; przy {@link ChunkPrefetcher} powstaje w tle).
+ * Alokacje wątku liczy {@code com.sun.management.ThreadMXBean} wokół każdego kroku.
+ */
+public class SimulationAllocationTest {
+
+    private static final int WARMUP = 50_000;
+    private static final int MEASURED = 20_000;
+
+    private int chunkCalls;   // pobrania chunków – krok z pobraniem nie jest mierzony
+    private int measured, skipped;
+
+    @Test
+    public void steadyStateStepAllocatesNothing() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        LevelGenerator.Source world = (seed, index) -> {
+            chunkCalls++;
+            return LevelGenerator.chunk(seed, index);
+        };
+        Simulation sim = new Simulation(1, world);
+        int[] inputs = script();
+
+        // Rozgrzewka tą samą pętlą – JIT kompiluje też sam pomiar (kompilacja
+        // getThreadAllocatedBytes w trakcie pomiaru potrafi jednorazowo doliczyć kilkaset bajtów)
+        run(threads, sim, inputs, WARMUP);
+        long bytes = run(threads, sim, inputs, MEASURED);
+        assertTrue("zmierzono tylko " + measured + " kroków", measured > MEASURED * 9 / 10);
+        assertEquals("bajty w " + measured + " krokach (pominięte przy chunkach: " + skipped + ")", 0, bytes);
+    }
+
+    /** {@code steps} kroków (z restartem po końcu gry); zwraca bajty zaalokowane w krokach bez pobrania chunka. */
+    private long run(com.sun.management.ThreadMXBean threads, Simulation sim, int[] inputs, int steps) {
+        long id = Thread.currentThread().getId();
+        long bytes = 0;
+        measured = 0;
+        skipped = 0;
+        for (int i = 0; i < steps; i++) {
+            if (sim.gameOver()) sim.reset(sim.seed() + 1);   // reset poza pomiarem (pierwsze chunki nowej gry)
+            int in = inputs[i & (inputs.length - 1)];
+            int calls = chunkCalls;
+            long a = threads.getThreadAllocatedBytes(id);
+            sim.step(in);
+            long b = threads.getThreadAllocatedBytes(id);
+            if (chunkCalls != calls) {
+                skipped++;
+                continue;
+            }
+            bytes += b - a;
+            measured++;
+        }
+        return bytes;
+    }
+
+    /** Wejście jak w SimulationBench: co 20 kroków nowy kierunek i czasem skok. */
+    private static int[] script() {
+        Random r = new Random(1);
+        int[] inputs = new int[4096];
+        int in = 0;
+        for (int i = 0; i < inputs.length; i++) {
+            if (i % 20 == 0) in = r.nextInt(8);
+            else in &= ~Simulation.IN_JUMP;
+            inputs[i] = in;
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,149 @@
+package skaczacykot;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static skaczacykot.Simulation.*;
+
+/**
+ * Scenariusze kolizji ciągłych ({@link Simulation#sweepToi}, {@link Simulation#step}): szybki gracz
+ * nie przelatuje przez platformy, uderzenie z boku i w sufit, styk spoczynkowy, zawijanie na brzegach.
+ * <p>
+ * Świat testowy jest stały: platformy rzędów parzystych na x 1200..1500, nieparzystych na 200..500,
+ * bez monet i kolców – nad rzędem 0 (y 220..260) aż do rzędu 2 nic nie leży w kolumnie 1200..1500.
+ */
+public class SimulationCollisionTest {
+
+    private static final int PLAT_X = 1200, PLAT_W = 300;
+    private static final int ROW0_Y = LevelGenerator.rowY(0);   // 220
+
+    private static final LevelGenerator.Source WORLD = (seed, index) -> {
+        LevelGenerator.Chunk c = new LevelGenerator.Chunk(seed, index);
+        for (int r = 0; r < LevelGenerator.CHUNK_ROWS; r++) {
+            int row = index * LevelGenerator.CHUNK_ROWS + r;
+            c.platform(row % 2 == 0 ? PLAT_X : 200, LevelGenerator.rowY(row), PLAT_W, PLAT_H);
+        }
+        return c;
+    };
+
+    private static Simulation sim() {
+        return new Simulation(1, WORLD);
+    }
+
+    /** Prędkość pionowa, przy której ruch w kroku (po grawitacji) wynosi {@code perTick} px. */
+    private static double fallSpeed(double perTick) {
+        return perTick / DT - GRAVITY * DT;
+    }
+
+    // --- sweepToi ---
+
+    @Test
+    public void fastFallHitsPlatformTop() {
+        // Stopy 404 px nad platformą, ruch 1000 px w kroku – bez przeciągania przeleciałby na wylot (40 px grubości)
+        double toi = sweepToi(1310, ROW0_Y - PLAYER_H - 404, 0, 1000, PLAT_X, ROW0_Y, PLAT_W, PLAT_H);
+        assertTrue(toi < 1);
+        assertEquals(0.404, toi, 1e-9);
+    }
+
+    @Test
+    public void fastSideMoveHitsPlatformSide() {
+        // Prawy bok 420 px przed platformą, na jej wysokości
+        double toi = sweepToi(PLAT_X - PLAYER_W - 420, ROW0_Y - 20, 1000, 0, PLAT_X, ROW0_Y, PLAT_W, PLAT_H);
+        assertEquals(0.42, toi, 1e-9);
+    }
+
+    @Test
+    public void restingContactIsNotHit() {
+        // Stopy dokładnie na górze platformy, ruch wzdłuż niej albo brak ruchu
+        int y = ROW0_Y - PLAYER_H;
+        assertEquals(Double.POSITIVE_INFINITY, sweepToi(1310, y, 7.5, 0, PLAT_X, ROW0_Y, PLAT_W, PLAT_H), 0);
+        assertEquals(Double.POSITIVE_INFINITY, sweepToi(1310, y, 0, 0, PLAT_X, ROW0_Y, PLAT_W, PLAT_H), 0);
+        // Odejście od platformy w górę
+        assertEquals(Double.POSITIVE_INFINITY, sweepToi(1310, y, 0, -20, PLAT_X, ROW0_Y, PLAT_W, PLAT_H), 0);
+    }
+
+    @Test
+    public void upwardMoveHitsCeiling() {
+        double toi = sweepToi(1310, ROW0_Y + PLAT_H + 10, 0, -20, PLAT_X, ROW0_Y, PLAT_W, PLAT_H);
+        assertEquals(0.5, toi, 1e-9);
+    }
+
+    @Test
+    public void missBesidePlatform() {
+        assertEquals(Double.POSITIVE_INFINITY, sweepToi(PLAT_X + PLAT_W, ROW0_Y - 500, 0, 1000, PLAT_X, ROW0_Y, PLAT_W, PLAT_H), 0);
+        assertEquals(Double.POSITIVE_INFINITY, sweepToi(1310, ROW0_Y - PLAYER_H - 1001, 0, 1000, PLAT_X, ROW0_Y, PLAT_W, PLAT_H), 0);
+    }
+
+    // --- step ---
+
+    @Test
+    public void fastFallLandsOnTop() {
+        Simulation sim = sim();
+        sim.place(1350, ROW0_Y - PLAYER_H - 404 + 64, 0, fallSpeed(1000));
+        int events = sim.step(0);
+        assertEquals(0, events & EV_GAME_OVER);
+        assertTrue(sim.onGround());
+        assertEquals(ROW0_Y - 32, sim.py(), 0);
+        assertEquals(0, sim.vy(), 0);
+        assertEquals(1350, sim.px(), 0);
+    }
+
+    @Test
+    public void sideHitStopsAtPlatformEdge() {
+        Simulation sim = sim();
+        sim.place(PLAT_X - PLAYER_HALF_W - 5, ROW0_Y - 20 + 64, MOVE_MAX, 0);
+        sim.step(IN_RIGHT);
+        assertEquals(PLAT_X - PLAYER_HALF_W, sim.px(), 0);
+        assertEquals(0, sim.vx(), 0);
+        assertFalse(sim.onGround());
+        assertTrue(sim.py() > ROW0_Y - 20 + 64);   // spada dalej wzdłuż boku
+    }
+
+    @Test
+    public void restingContactStaysOnGround() {
+        Simulation sim = sim();
+        for (int i = 0; i < 120; i++) {
+            sim.step(i < 60 ? IN_RIGHT : 0);
+            assertTrue("krok " + i, sim.onGround());
+            assertEquals("krok " + i, START_FLOOR_Y - 32, sim.py(), 0);
+            assertEquals("krok " + i, 0, sim.vy(), 0);
+        }
+    }
+
+    @Test
+    public void ceilingBumpStopsUnderPlatform() {
+        Simulation sim = sim();
+        sim.place(1350, ROW0_Y + PLAT_H + 10 + 64, 0, -JUMP_VY);
+        sim.step(0);
+        assertEquals(ROW0_Y + PLAT_H + 64, sim.py(), 0);
+        assertTrue(sim.vy() > 0);
+        assertFalse(sim.onGround());
+    }
+
+    @Test
+    public void wrapsAtLeftEdge() {
+        Simulation sim = sim();
+        sim.place(-60, 300, -MOVE_MAX, 0);
+        sim.step(IN_LEFT);
+        assertEquals(WORLD_W + 64, sim.px(), 0);
+    }
+
+    @Test
+    public void wrapsAtRightEdge() {
+        Simulation sim = sim();
+        sim.place(WORLD_W + 60, 300, MOVE_MAX, 0);
+        sim.step(IN_RIGHT);
+        assertEquals(-64, sim.px(), 0);
+    }
+
+    @Test
+    public void noWrapExactlyAtEdges() {
+        Simulation sim = sim();
+        sim.place(-64, 300, 0, 0);
+        sim.step(0);
+        assertEquals(-64, sim.px(), 0);
+        sim.place(WORLD_W + 64, 300, 0, 0);
+        sim.step(0);
+        assertEquals(WORLD_W + 64, sim.px(), 0);
+    }
+}